@@ -0,0 +1,70 @@
+package org.example.backend.config;
+
+import org.example.backend.exception.ErrorMessage;
+import org.example.backend.exception.ServiceBusyException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+// Runs the CPU-heavy encode/matches calls of the delegate on a dedicated bounded pool. At most
+// threads + queue capacity callers wait for a hash at any time; everyone else is rejected immediately with
+// ServiceBusyException (503), so a login storm cannot tie up every servlet thread or starve cheap requests of CPU.
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final ExecutorService executor;
+    private final Duration retryAfter;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, ExecutorService executor, Duration retryAfter) {
+        this.delegate = delegate;
+        this.executor = executor;
+        this.retryAfter = retryAfter;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return submit(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return submit(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    // only inspects the stored hash, so it stays on the caller's thread
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    // called by Spring on shutdown
+    public void close() {
+        executor.shutdown();
+    }
+
+    private <T> T submit(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException ex) {
+            throw new ServiceBusyException(ErrorMessage.SERVICE_BUSY.getMessage(), retryAfter);
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException(ErrorMessage.SERVICE_BUSY.getMessage(), retryAfter);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+}
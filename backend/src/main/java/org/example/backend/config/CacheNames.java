@@ -0,0 +1,9 @@
+package org.example.backend.config;
+
+public final class CacheNames {
+    // single doctor views returned by PatientService.getDoctorById, keyed by doctor id
+    public static final String DOCTORS = "doctors";
+
+    private CacheNames() {
+    }
+}
@@ -1,76 +1,337 @@
 package org.example.backend.config;
 
 import com.github.javafaker.Faker;
-import lombok.RequiredArgsConstructor;
-import org.example.backend.model.*;
-import org.example.backend.repository.UserRepository;
-import org.springframework.boot.CommandLineRunner;
-import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.Configuration;
+import org.example.backend.event.DoctorsImportedEvent;
+import org.example.backend.model.City;
+import org.example.backend.model.Day;
+import org.example.backend.model.DoctorSpeciality;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
-@Configuration
-@RequiredArgsConstructor
+// Fills an empty database with demo data: patients, doctors, appointments and medical records, in the volumes of
+// the seed.* properties. Runs on the @Async executor once the application is ready, so startup never waits for it.
+//
+// Rows are written with JDBC batches in one transaction instead of one entity save per row, and the large tables are
+// streamed batch by batch as they are generated. Ids are reserved from the entity sequences before each batch, so
+// child rows can reference them without reading anything back. Every seeded account gets the same password, hashed
+// once. Appointments respect the doctors' working days and capacity, and the doctor-day counters are then derived
+// from them the same way the V4 migration does.
+@Component
 public class DataSeeder {
+    private static final Logger log = LoggerFactory.getLogger(DataSeeder.class);
+
+    private static final int BATCH_SIZE = 1000;
+    // allocationSize of the entity sequence generators: each nextval reserves this many ids
+    private static final int ID_BLOCK = 50;
+    // appointments fall between APPOINTMENT_DAYS_BACK days ago and APPOINTMENT_DAYS_AHEAD days from today
+    private static final int APPOINTMENT_DAYS_BACK = 90;
+    private static final int APPOINTMENT_DAYS_AHEAD = 30;
+    private static final int RECORD_DAYS_BACK = 3 * 365;
+    // Faker takes tens of microseconds per value, so names, streets and bios are combined from pools of this size
+    private static final int FAKER_POOL_SIZE = 500;
+
+    private static final String[] COMPLAINTS = {
+            "Persistent headache for two weeks", "Chest pain on exertion", "Shortness of breath on stairs",
+            "Lower back pain after lifting", "Recurrent rash on both forearms", "Blurred vision in the left eye",
+            "Dizziness and ringing in the ears", "Knee swelling after a fall", "Palpitations at night",
+            "Sore throat and fever"};
+    private static final String[] FINDINGS = {
+            "blood pressure 140/90", "ECG shows sinus rhythm", "tenderness over the lumbar spine",
+            "eczema with dry scaly patches", "intraocular pressure within normal range",
+            "reduced range of motion in the right knee", "MRI without acute findings", "elevated LDL cholesterol",
+            "otitis media on examination", "chest X-ray clear"};
+    private static final String[] PLANS = {
+            "ibuprofen 400 mg as needed", "amlodipine 5 mg daily", "physiotherapy twice a week",
+            "topical corticosteroid cream", "follow-up in four weeks", "referred for echocardiography",
+            "low-salt diet and daily walks", "antibiotic course for seven days", "new glasses prescribed",
+            "blood tests repeated in three months"};
 
-    private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean enabled;
+    private final Volume volume;
+    private final String password;
+    private final CompletableFuture<Void> seeded = new CompletableFuture<>();
+
+    public DataSeeder(PasswordEncoder passwordEncoder, JdbcTemplate jdbcTemplate,
+                      TransactionTemplate transactionTemplate, ApplicationEventPublisher eventPublisher,
+                      @Value("${seed.enabled:true}") boolean enabled,
+                      @Value("${seed.patients:5}") int patients,
+                      @Value("${seed.doctors:20}") int doctors,
+                      @Value("${seed.appointments:0}") int appointments,
+                      @Value("${seed.medical-records:0}") int medicalRecords,
+                      @Value("${seed.password:password}") String password) {
+        this.passwordEncoder = passwordEncoder;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+        this.volume = new Volume(patients, doctors, appointments, medicalRecords);
+        this.password = password;
+    }
+
+    // completes when seeding finished or was skipped; for callers that need the demo accounts (e.g. load tests)
+    public CompletableFuture<Void> seeded() {
+        return seeded;
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedDatabase() {
+        try {
+            if (enabled) {
+                seed();
+            }
+            seeded.complete(null);
+        } catch (RuntimeException ex) {
+            log.error("Seeding the database failed", ex);
+            seeded.completeExceptionally(ex);
+        }
+    }
+
+    private void seed() {
+        long start = System.nanoTime();
+        String hash = passwordEncoder.encode(password);
+        Boolean seededNow = transactionTemplate.execute(_ -> {
+            if (Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM users)", Boolean.class))) {
+                return false;
+            }
+            new Generator(new Faker(new Locale("en")), new Random(), hash).run();
+            return true;
+        });
+        if (!Boolean.TRUE.equals(seededNow)) {
+            log.info("Database already seeded, skipping");
+            return;
+        }
+        log.info("Seeded {} patients, {} doctors, up to {} appointments and {} medical records in {} ms",
+                volume.patients(), volume.doctors(), volume.appointments(), volume.medicalRecords(),
+                (System.nanoTime() - start) / 1_000_000);
+        eventPublisher.publishEvent(new DoctorsImportedEvent(volume.doctors()));
+    }
+
+    // ids for count new rows, taken block by block the way the pooled-lo generators of the entities take them
+    private long[] reserveIds(String sequence, int count) {
+        List<Long> blocks = jdbcTemplate.queryForList("SELECT nextval(?::regclass) FROM generate_series(1, ?)",
+                Long.class, sequence, (count + ID_BLOCK - 1) / ID_BLOCK);
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = blocks.get(i / ID_BLOCK) + i % ID_BLOCK;
+        }
+        return ids;
+    }
+
+    private void insert(String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+            jdbcTemplate.batchUpdate(sql, rows.subList(from, Math.min(from + BATCH_SIZE, rows.size())));
+        }
+    }
+
+    private record Volume(int patients, int doctors, int appointments, int medicalRecords) {
+    }
 
-    @Bean
-    public CommandLineRunner seedDatabase() {
-        return _ -> {
-            if (userRepository.count() > 0) {
-                System.out.println("Database already seeded, skipping...");
+    // Rows of a table with sequence ids, written BATCH_SIZE at a time as they are generated so millions of rows
+    // never sit in memory; the ids of each batch are reserved right before it is written
+    private class Batch {
+        private final String sql;
+        private final String sequence;
+        private final List<Object[]> rows = new ArrayList<>(BATCH_SIZE);
+
+        Batch(String sql, String sequence) {
+            this.sql = sql;
+            this.sequence = sequence;
+        }
+
+        // the values of every column after the id
+        void add(Object... values) {
+            Object[] row = new Object[values.length + 1];
+            System.arraycopy(values, 0, row, 1, values.length);
+            rows.add(row);
+            if (rows.size() == BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (rows.isEmpty()) {
                 return;
             }
+            long[] ids = reserveIds(sequence, rows.size());
+            for (int i = 0; i < ids.length; i++) {
+                rows.get(i)[0] = ids[i];
+            }
+            jdbcTemplate.batchUpdate(sql, rows);
+            rows.clear();
+        }
+    }
+
+    // one seeding run; holds the generated doctors so appointments can respect their days and capacity
+    private class Generator {
+        private final Random random;
+        private final String[] firstNames;
+        private final String[] lastNames;
+        private final String[] streets;
+        private final String[] bios;
+        private final String hash;
+        private final City[] cities = Arrays.stream(City.values()).filter(city -> city != City.ALL)
+                .toArray(City[]::new);
+        private final DoctorSpeciality[] specialities = Arrays.stream(DoctorSpeciality.values())
+                .filter(speciality -> speciality != DoctorSpeciality.ALL).toArray(DoctorSpeciality[]::new);
+        private long[] patientIds;
+        private long[] doctorIds;
+        private int[] doctorDays;
+        private int[] doctorCapacity;
 
-            Faker faker = new Faker(new Locale("en"));
+        Generator(Faker faker, Random random, String hash) {
+            this.random = random;
+            this.firstNames = pool(() -> faker.name().firstName());
+            this.lastNames = pool(() -> faker.name().lastName());
+            this.streets = pool(() -> faker.address().streetAddress());
+            this.bios = pool(() -> faker.lorem().sentence(12));
+            this.hash = hash;
+        }
 
-            // Create 20 Patients
-            for (int i = 0; i < 5; i++) {
-                Patient patient = Patient.builder()
-                        .fullName(faker.name().fullName())
-                        .email("patient" + i + "@gmail.com")
-                        .password(passwordEncoder.encode("password"))
-                        .phoneNumber("010" + faker.number().digits(8))
-                        .appointments(new ArrayList<>())
-                        .medicalRecords(new ArrayList<>())
-                        .build();
+        void run() {
+            long[] ids = reserveIds("users_seq", volume.patients() + volume.doctors());
+            patientIds = Arrays.copyOfRange(ids, 0, volume.patients());
+            doctorIds = Arrays.copyOfRange(ids, volume.patients(), ids.length);
+            patients();
+            doctors();
+            appointments();
+            medicalRecords();
+        }
 
-                userRepository.save(patient);
+        private void patients() {
+            List<Object[]> users = new ArrayList<>(patientIds.length);
+            List<Object[]> patients = new ArrayList<>(patientIds.length);
+            for (int i = 0; i < patientIds.length; i++) {
+                users.add(new Object[]{patientIds[i], "PATIENT", name(), "patient" + i + "@gmail.com", hash,
+                        "010" + String.format("%08d", i)});
+                patients.add(new Object[]{patientIds[i]});
             }
+            insert("INSERT INTO users (id, type, full_name, email, password, phone_number) VALUES (?, ?, ?, ?, ?, ?)",
+                    users);
+            insert("INSERT INTO patients (id) VALUES (?)", patients);
+        }
 
-            // Create 20 Doctors
-            City[] cities = City.values();
-            DoctorSpeciality[] specialities = DoctorSpeciality.values();
-            Day[] days = Day.values();
-
-            for (int i = 0; i < 20; i++) {
-                Doctor doctor = Doctor.builder()
-                        .fullName(faker.name().fullName())
-                        .email("doctor" + i + "@gmail.com")
-                        .password(passwordEncoder.encode("password"))
-                        .phoneNumber("011" + faker.number().digits(8))
-                        .city(cities[faker.number().numberBetween(1, cities.length)])
-                        .street(faker.address().streetName())
-                        .doctorSpeciality(specialities[faker.number().numberBetween(1, specialities.length)])
-                        .info(faker.lorem().sentence(10))
-                        .patientNumber(faker.number().numberBetween(5, 50))
-                        .startTime(LocalTime.of(9, 0))
-                        .endTime(LocalTime.of(17, 0))
-                        .consultationFee(faker.number().randomDouble(2, 100, 500))
-                        .availableDays(Arrays.asList(days))
-                        .appointments(new ArrayList<>())
-                        .medicalRecords(new ArrayList<>())
-                        .build();
-
-                userRepository.save(doctor);
+        private void doctors() {
+            doctorDays = new int[doctorIds.length];
+            doctorCapacity = new int[doctorIds.length];
+            List<Object[]> users = new ArrayList<>(doctorIds.length);
+            List<Object[]> doctors = new ArrayList<>(doctorIds.length);
+            List<Object[]> days = new ArrayList<>();
+            for (int i = 0; i < doctorIds.length; i++) {
+                long id = doctorIds[i];
+                // four to seven working days, 9-12 to 15-20 o'clock
+                List<Day> workingDays = new ArrayList<>(List.of(Day.values()));
+                Collections.shuffle(workingDays, random);
+                workingDays = workingDays.subList(0, 4 + random.nextInt(4));
+                LocalTime startTime = LocalTime.of(9 + random.nextInt(4), 0);
+                doctorDays[i] = Day.toMask(workingDays);
+                doctorCapacity[i] = 5 + random.nextInt(46);
+                users.add(new Object[]{id, "DOCTOR", name(), "doctor" + i + "@gmail.com", hash,
+                        "011" + String.format("%08d", i)});
+                doctors.add(new Object[]{id, cities[random.nextInt(cities.length)].name(),
+                        pick(streets), specialities[random.nextInt(specialities.length)].name(),
+                        pick(bios), doctorCapacity[i], startTime,
+                        startTime.plusHours(6 + random.nextInt(3)),
+                        Math.round((100 + random.nextDouble() * 600) * 100) / 100.0, doctorDays[i],
+                        Day.toOrder(workingDays)});
+                for (Day day : workingDays) {
+                    days.add(new Object[]{id, day.name()});
+                }
             }
+            insert("INSERT INTO users (id, type, full_name, email, password, phone_number) VALUES (?, ?, ?, ?, ?, ?)",
+                    users);
+            insert("""
+                    INSERT INTO doctors (id, city, street, doctor_speciality, info, patient_number, start_time, end_time,
+                                         consultation_fee, available_days_mask, available_days_order)
+                    VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)""", doctors);
+            insert("INSERT INTO doctor_available_days (doctor_id, day) VALUES (?, ?)", days);
+        }
+
+        // Random patient, doctor and day; a draw is dropped when the doctor does not work that day or the day is
+        // full. A patient drawn twice for the same doctor and day is left to the unique constraint, so that day
+        // simply ends up with one appointment less.
+        private void appointments() {
+            if (volume.appointments() == 0 || patientIds.length == 0 || doctorIds.length == 0) {
+                return;
+            }
+            int windowDays = APPOINTMENT_DAYS_BACK + APPOINTMENT_DAYS_AHEAD + 1;
+            LocalDate first = LocalDate.now().minusDays(APPOINTMENT_DAYS_BACK);
+            int[] booked = new int[doctorIds.length * windowDays];
+            Batch rows = new Batch("""
+                    INSERT INTO appointments (id, date, patient_id, doctor_id) VALUES (?, ?, ?, ?)
+                    ON CONFLICT (date, patient_id, doctor_id) DO NOTHING""", "appointments_seq");
+            int added = 0;
+            for (long draw = 0; added < volume.appointments() && draw < 3L * volume.appointments(); draw++) {
+                int patient = random.nextInt(patientIds.length);
+                int doctor = random.nextInt(doctorIds.length);
+                int offset = random.nextInt(windowDays);
+                LocalDate date = first.plusDays(offset);
+                int doctorDay = doctor * windowDays + offset;
+                if ((doctorDays[doctor] & Day.of(date.getDayOfWeek()).bit()) == 0
+                        || booked[doctorDay] >= doctorCapacity[doctor]) {
+                    continue;
+                }
+                booked[doctorDay]++;
+                rows.add(date, patientIds[patient], doctorIds[doctor]);
+                added++;
+            }
+            rows.flush();
+            jdbcTemplate.update("""
+                    INSERT INTO doctor_day_slots (doctor_id, date, booked)
+                    SELECT a.doctor_id, a.date, COUNT(*)
+                    FROM appointments a
+                    WHERE a.date >= CURRENT_DATE
+                    GROUP BY a.doctor_id, a.date
+                    ON CONFLICT (doctor_id, date) DO NOTHING""");
+        }
+
+        private void medicalRecords() {
+            if (volume.medicalRecords() == 0 || patientIds.length == 0 || doctorIds.length == 0) {
+                return;
+            }
+            LocalDate today = LocalDate.now();
+            Batch rows = new Batch("INSERT INTO medical_records (id, content, date, doctor_id, patient_id) "
+                    + "VALUES (?, ?, ?, ?, ?)", "medical_records_seq");
+            for (int i = 0; i < volume.medicalRecords(); i++) {
+                String content = pick(COMPLAINTS) + "; " + pick(FINDINGS) + ". Plan: " + pick(PLANS) + ".";
+                rows.add(content, today.minusDays(random.nextInt(RECORD_DAYS_BACK)),
+                        doctorIds[random.nextInt(doctorIds.length)], patientIds[random.nextInt(patientIds.length)]);
+            }
+            rows.flush();
+        }
+
+        // users.full_name holds at most 50 characters
+        private String name() {
+            String name = pick(firstNames) + " " + pick(lastNames);
+            return name.length() <= 50 ? name : name.substring(0, 50);
+        }
+
+        private static String[] pool(Supplier<String> faker) {
+            return Stream.generate(faker).limit(FAKER_POOL_SIZE).toArray(String[]::new);
+        }
 
-            System.out.println("Seeded 5 patients and 20 doctors.");
-        };
+        private String pick(String[] values) {
+            return values[random.nextInt(values.length)];
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,149 @@
+package org.example.backend.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.dao.DataAccessException;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+// Two-tier cache manager: every operation goes to the primary (Redis) tier, and when it fails with a data access
+// error the primary is skipped for retryInterval and the fallback (Caffeine) tier is used instead.
+// Evictions are applied to both tiers; an eviction missed by the primary while it was down clears that primary
+// cache once it is reachable again, so neither tier serves entries that outlived a change.
+// Caches are transaction-aware: inside a transaction, puts and evictions run after it commits, so a @CacheEvict on a
+// @Transactional method cannot let a concurrent read cache the old row before the change is visible.
+public class FallbackCacheManager implements CacheManager {
+    private static final Logger log = LoggerFactory.getLogger(FallbackCacheManager.class);
+
+    private final CacheManager primary;
+    private final CacheManager fallback;
+    private final long retryIntervalMs;
+    private final ConcurrentMap<String, Cache> caches = new ConcurrentHashMap<>();
+
+    // time (ms) until which the primary tier is considered down, shared by all caches
+    private volatile long primaryDownUntil;
+
+    public FallbackCacheManager(CacheManager primary, CacheManager fallback, Duration retryInterval) {
+        this.primary = primary;
+        this.fallback = fallback;
+        this.retryIntervalMs = retryInterval.toMillis();
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, _ -> new TransactionAwareCacheDecorator(
+                new FallbackCache(primary.getCache(name), fallback.getCache(name))));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return primary.getCacheNames();
+    }
+
+    public boolean isPrimaryAvailable() {
+        return System.currentTimeMillis() >= primaryDownUntil;
+    }
+
+    private void markPrimaryDown(DataAccessException ex) {
+        if (isPrimaryAvailable()) {
+            log.warn("Cache primary tier unavailable, using in-process fallback for {} ms: {}",
+                    retryIntervalMs, ex.getMessage());
+        }
+        primaryDownUntil = System.currentTimeMillis() + retryIntervalMs;
+    }
+
+    private class FallbackCache implements Cache {
+        private final Cache primaryCache;
+        private final Cache fallbackCache;
+        // set when an eviction could not reach the primary tier
+        private volatile boolean primaryStale;
+
+        FallbackCache(Cache primaryCache, Cache fallbackCache) {
+            this.primaryCache = primaryCache;
+            this.fallbackCache = fallbackCache;
+        }
+
+        // runs the operation on the primary tier, or on the fallback tier if the primary is (or just went) down
+        private <T> T call(Supplier<T> onPrimary, Supplier<T> onFallback) {
+            if (primaryCache != null && isPrimaryAvailable()) {
+                try {
+                    if (primaryStale) {
+                        primaryCache.clear();
+                        primaryStale = false;
+                    }
+                    return onPrimary.get();
+                } catch (DataAccessException ex) {
+                    markPrimaryDown(ex);
+                }
+            }
+            return onFallback.get();
+        }
+
+        @Override
+        public String getName() {
+            return fallbackCache.getName();
+        }
+
+        @Override
+        public Object getNativeCache() {
+            return primaryCache != null ? primaryCache.getNativeCache() : fallbackCache.getNativeCache();
+        }
+
+        @Override
+        public ValueWrapper get(Object key) {
+            return call(() -> primaryCache.get(key), () -> fallbackCache.get(key));
+        }
+
+        @Override
+        public <T> T get(Object key, Class<T> type) {
+            return call(() -> primaryCache.get(key, type), () -> fallbackCache.get(key, type));
+        }
+
+        @Override
+        public <T> T get(Object key, Callable<T> valueLoader) {
+            return call(() -> primaryCache.get(key, valueLoader), () -> fallbackCache.get(key, valueLoader));
+        }
+
+        @Override
+        public void put(Object key, Object value) {
+            call(() -> {
+                primaryCache.put(key, value);
+                return null;
+            }, () -> {
+                fallbackCache.put(key, value);
+                return null;
+            });
+        }
+
+        @Override
+        public void evict(Object key) {
+            fallbackCache.evict(key);
+            call(() -> {
+                primaryCache.evict(key);
+                return null;
+            }, this::markPrimaryStale);
+        }
+
+        @Override
+        public void clear() {
+            fallbackCache.clear();
+            call(() -> {
+                primaryCache.clear();
+                return null;
+            }, this::markPrimaryStale);
+        }
+
+        private Void markPrimaryStale() {
+            primaryStale = primaryCache != null;
+            return null;
+        }
+    }
+}
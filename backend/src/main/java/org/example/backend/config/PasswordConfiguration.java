@@ -0,0 +1,86 @@
+package org.example.backend.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class PasswordConfiguration {
+    private static final Logger log = LoggerFactory.getLogger(PasswordConfiguration.class);
+
+    private static final String BCRYPT = "bcrypt";
+    // bounds for the calibrated cost: at least 12 even where that misses the target time, never so slow that logins
+    // time out
+    static final int MIN_COST = 12;
+    static final int MAX_COST = 16;
+    private static final int CALIBRATION_SAMPLES = 5;
+
+    @Bean
+    public PasswordEncoder passwordEncoder(@Value("${password.bcrypt.cost:0}") int configuredCost,
+                                           @Value("${password.bcrypt.target-time:PT0.25S}") Duration targetTime,
+                                           @Value("${password.hashing.threads:0}") int threads,
+                                           @Value("${password.hashing.queue-capacity:64}") int queueCapacity,
+                                           @Value("${password.hashing.retry-after:PT1S}") Duration retryAfter,
+                                           MeterRegistry meterRegistry) {
+        int cost = configuredCost > 0 ? configuredCost : calibrateCost(targetTime);
+        log.info("Hashing passwords with bcrypt cost {}", cost);
+
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        // not exposed as a bean: an Executor bean would switch off Spring Boot's default task executor
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("password-hashing-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        ExecutorServiceMetrics.monitor(meterRegistry, executor, "passwordHashing");
+        return new BoundedPasswordEncoder(delegatingEncoder(cost), executor, retryAfter);
+    }
+
+    // New hashes are stored as {bcrypt}<hash> with the given cost. Hashes written before the prefix existed are
+    // plain bcrypt: they still match, and upgradeEncoding reports them (and any lower-cost hash) as outdated,
+    // so they are re-hashed on the next successful login.
+    static DelegatingPasswordEncoder delegatingEncoder(int cost) {
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(BCRYPT,
+                Map.of(BCRYPT, new BCryptPasswordEncoder(cost)));
+        encoder.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder());
+        return encoder;
+    }
+
+    // Picks the highest cost whose hash still fits in the target time on this machine (each step doubles the work).
+    // The median of several hashes is used, so one slowed down by a GC pause or a busy neighbour does not count.
+    static int calibrateCost(Duration targetTime) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(MIN_COST);
+        encoder.encode("calibration"); // warm-up
+        long[] samples = new long[CALIBRATION_SAMPLES];
+        for (int i = 0; i < samples.length; i++) {
+            long start = System.nanoTime();
+            encoder.encode("calibration");
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        long nanos = samples[samples.length / 2];
+        if (nanos > targetTime.toNanos()) {
+            log.warn("A bcrypt hash at the minimum cost {} takes {} ms here, more than the target of {} ms; "
+                    + "using cost {} anyway", MIN_COST, nanos / 1_000_000, targetTime.toMillis(), MIN_COST);
+        }
+        int cost = MIN_COST;
+        while (cost < MAX_COST && nanos * 2 <= targetTime.toNanos()) {
+            cost++;
+            nanos *= 2;
+        }
+        return cost;
+    }
+}
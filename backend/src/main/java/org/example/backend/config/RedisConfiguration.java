@@ -1,21 +1,59 @@
 package org.example.backend.config;
 
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.BatchStrategies;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 
+import java.time.Duration;
+import java.util.Set;
+
 @Configuration
 public class RedisConfiguration {
     @Bean
-    public RedisCacheConfiguration cacheConfiguration() {
+    public RedisCacheConfiguration cacheConfiguration(@Value("${cache.ttl:PT10M}") Duration ttl) {
         return RedisCacheConfiguration.defaultCacheConfig()
+                .entryTtl(ttl)
                 .disableCachingNullValues()
                 .serializeValuesWith(
                         RedisSerializationContext.SerializationPair.fromSerializer(
+                                // cached DTOs contain LocalTime fields (doctor working hours)
                                 new GenericJackson2JsonRedisSerializer()
+                                        .configure(mapper -> mapper.registerModule(new JavaTimeModule()))
                         )
                 );
     }
-}
\ No newline at end of file
+
+    // Redis is the shared cache tier; while it is unreachable, caches are served from an in-process Caffeine tier
+    @Bean
+    public CacheManager cacheManager(RedisConnectionFactory connectionFactory,
+                                     RedisCacheConfiguration cacheConfiguration,
+                                     @Value("${cache.fallback.ttl:PT1M}") Duration fallbackTtl,
+                                     @Value("${cache.fallback.max-size:10000}") long fallbackMaxSize,
+                                     @Value("${cache.redis.retry-interval:PT30S}") Duration retryInterval) {
+        RedisCacheManager redisCacheManager = RedisCacheManager
+                // SCAN instead of KEYS when a whole cache is cleared (allEntries = true)
+                .builder(RedisCacheWriter.nonLockingRedisCacheWriter(connectionFactory, BatchStrategies.scan(1000)))
+                .cacheDefaults(cacheConfiguration)
+                .initialCacheNames(Set.of(CacheNames.DOCTORS))
+                .build();
+        redisCacheManager.afterPropertiesSet();
+
+        CaffeineCacheManager caffeineCacheManager = new CaffeineCacheManager();
+        caffeineCacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(fallbackMaxSize)
+                .expireAfterWrite(fallbackTtl));
+
+        return new FallbackCacheManager(redisCacheManager, caffeineCacheManager, retryInterval);
+    }
+}
@@ -1,12 +1,17 @@
 package org.example.backend.config;
 
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.example.backend.exception.ErrorMessage;
 import org.example.backend.jwt.JwtFilter;
+import org.example.backend.jwt.PrincipalCache;
+import org.example.backend.model.User;
 import org.example.backend.repository.UserRepository;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
@@ -15,8 +20,8 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -31,22 +36,32 @@ public class SecurityConfiguration {
     private final JwtFilter jwtFilter;
     private final UserRepository userRepository;
 
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(12);
-    }
-
     @Bean
     public UserDetailsService userDetailsService() {
         return username -> userRepository.findByEmailIgnoreCase(username)
                 .orElseThrow(() -> new EntityNotFoundException(ErrorMessage.USER_NOT_FOUND.getMessage()));
     }
 
+    // Called after a successful login whose stored hash is outdated (legacy format or lower cost),
+    // with the password re-hashed by the current encoder.
+    @Bean
+    public UserDetailsPasswordService userDetailsPasswordService(PrincipalCache principalCache) {
+        return (userDetails, newPassword) -> {
+            User user = (User) userDetails;
+            userRepository.updatePassword(user.getId(), newPassword);
+            principalCache.evict(user.getId());
+            user.setPassword(newPassword);
+            return user;
+        };
+    }
+
     @Bean
-    public AuthenticationProvider authProvider() {
+    public AuthenticationProvider authProvider(PasswordEncoder passwordEncoder,
+                                               UserDetailsPasswordService userDetailsPasswordService) {
         DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
         provider.setUserDetailsService(userDetailsService());
-        provider.setPasswordEncoder(passwordEncoder());
+        provider.setPasswordEncoder(passwordEncoder);
+        provider.setUserDetailsPasswordService(userDetailsPasswordService);
         return provider;
     }
 
@@ -55,8 +70,22 @@ public class SecurityConfiguration {
         return config.getAuthenticationManager();
     }
 
+    // Actuator endpoints are served only on the management port (management.server.address/port), which is bound to an
+    // internal address, so Prometheus scrapes them without a token; they are not mapped on the API port.
+    @Bean
+    @Order(1)
+    public SecurityFilterChain actuatorSecurityFilterChain(HttpSecurity http) throws Exception {
+        http.securityMatcher(EndpointRequest.toAnyEndpoint())
+                .csrf(csrf -> csrf.disable())
+                .authorizeHttpRequests(req -> req.anyRequest().permitAll())
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS));
+
+        return http.build();
+    }
+
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, AuthenticationProvider authProvider)
+            throws Exception {
         http.csrf(csrf -> csrf.disable())
                 .authorizeHttpRequests(req -> req
                         .requestMatchers(
@@ -71,10 +100,13 @@ public class SecurityConfiguration {
                                 "/swagger-resources/**",
                                 "/webjars/**")
                         .permitAll()
+                        // the dispatch that completes a streamed response; the request itself was authorized on
+                        // its way in, but the stateless JWT context is not carried over to this dispatch
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         // .requestMatchers("/patient/**").hasRole("PATIENT")   restrict access for specific roles
                         .anyRequest().authenticated())
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
-                .authenticationProvider(authProvider())
+                .authenticationProvider(authProvider)
                 // Register jwtFilter in the Spring Security filter chain so that it runs before UsernamePasswordAuthenticationFilter
                 .addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class);
 
@@ -0,0 +1,20 @@
+package org.example.backend.config;
+
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+
+@Configuration
+public class WebConfiguration {
+
+    // Hashes the response body into an ETag and answers a matching If-None-Match with 304 Not Modified. Only
+    // registered for small, frequently repeated responses: the whole body is buffered to compute the hash.
+    @Bean
+    public FilterRegistrationBean<ShallowEtagHeaderFilter> etagFilter() {
+        FilterRegistrationBean<ShallowEtagHeaderFilter> registration =
+                new FilterRegistrationBean<>(new ShallowEtagHeaderFilter());
+        registration.addUrlPatterns("/patient/doctors-search/typeahead");
+        return registration;
+    }
+}
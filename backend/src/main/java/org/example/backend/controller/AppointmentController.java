@@ -2,10 +2,13 @@ package org.example.backend.controller;
 
 import org.example.backend.dto.AppointmentResponse;
 import org.example.backend.dto.BookAppointmentRequest;
+import org.example.backend.dto.CursorPage;
+import org.example.backend.dto.DayAvailability;
 import org.example.backend.dto.ModifyAppointmentRequest;
 import org.example.backend.model.Patient;
 import org.example.backend.model.User;
 import org.example.backend.service.AppointmentService;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
@@ -13,6 +16,7 @@ import org.springframework.web.bind.annotation.*;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -30,6 +34,25 @@ public class AppointmentController {
         return appointmentService.getAppointments(authenticatedUser, page, size);
     }
 
+    // cursor-based alternative to the page/size listing above; pass back nextCursor to get the following slice
+    @GetMapping("/scroll")
+    @PreAuthorize("hasAnyRole('PATIENT', 'DOCTOR')")
+    public CursorPage<AppointmentResponse> scrollAppointments(Authentication authentication,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        User authenticatedUser = (User) authentication.getPrincipal();
+        return appointmentService.scrollAppointments(authenticatedUser, cursor, size);
+    }
+
+    // remaining capacity per working day of a doctor; from defaults to today and to to 30 days after from
+    @GetMapping("/availability/{doctorId}")
+    @PreAuthorize("hasAnyRole('PATIENT', 'DOCTOR')")
+    public List<DayAvailability> getAvailability(@PathVariable Long doctorId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return appointmentService.getAvailability(doctorId, from, to);
+    }
+
     @PostMapping
     @PreAuthorize("hasRole('PATIENT')")
     public AppointmentResponse bookAppointment(@RequestBody @Valid BookAppointmentRequest request,
@@ -1,7 +1,13 @@
 package org.example.backend.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import jakarta.validation.Valid;
 import org.example.backend.dto.AddMedicalRecordRequest;
+import org.example.backend.dto.CursorPage;
+import org.example.backend.dto.MedicalRecordResponse;
+import org.example.backend.dto.MedicalRecordSearchHit;
 import org.example.backend.model.User;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -10,99 +16,109 @@ import org.example.backend.model.Patient;
 import org.example.backend.model.Doctor;
 import org.example.backend.service.MedicalRecordService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @RestController
 @RequestMapping("/medical-records")
 public class MedicalRecordController {
         @Autowired
         private MedicalRecordService medicalRecordService;
+        @Autowired
+        private ObjectMapper objectMapper;
 
         @GetMapping("/patient/me")
         @PreAuthorize("hasRole('PATIENT')")
-        public List<org.example.backend.dto.MedicalRecordResponse> getRecordsByPatient(
-                        @AuthenticationPrincipal User user) {
+        public List<MedicalRecordResponse> getRecordsByPatient(@AuthenticationPrincipal User user) {
                 // user is guaranteed to be a Patient due to role
                 Patient patient = (Patient) user;
-                return medicalRecordService.getRecordsByPatient(patient).stream()
-                                .map(record -> org.example.backend.dto.MedicalRecordResponse.builder()
-                                                .id(record.getId())
-                                                .content(record.getContent())
-                                                .date(record.getDate())
-                                                .doctorId(record.getDoctor() != null ? record.getDoctor().getId()
-                                                                : null)
-                                                .doctorName(record.getDoctor() != null
-                                                                ? record.getDoctor().getFullName()
-                                                                : null)
-                                                .patientId(record.getPatient() != null ? record.getPatient().getId()
-                                                                : null)
-                                                .patientName(record.getPatient() != null
-                                                                ? record.getPatient().getFullName()
-                                                                : null)
-                                                .build())
-                                .toList();
+                return medicalRecordService.getRecordsByPatient(patient);
+        }
+
+        // Timeline, newest first, in keyset-paginated slices; pass back nextCursor to get the following slice.
+        // With Accept: application/x-ndjson the whole timeline is streamed instead, one record per line.
+        @GetMapping(value = "/patient/me/timeline", produces = MediaType.APPLICATION_JSON_VALUE)
+        @PreAuthorize("hasRole('PATIENT')")
+        public CursorPage<MedicalRecordResponse> getPatientTimeline(@AuthenticationPrincipal User user,
+                        @RequestParam(required = false) String cursor,
+                        @RequestParam(defaultValue = "20") int size) {
+                return medicalRecordService.getTimelineOfPatient((Patient) user, cursor, size);
+        }
+
+        @GetMapping(value = "/patient/me/timeline", produces = MediaType.APPLICATION_NDJSON_VALUE)
+        @PreAuthorize("hasRole('PATIENT')")
+        public ResponseEntity<StreamingResponseBody> streamPatientTimeline(@AuthenticationPrincipal User user) {
+                Long patientId = user.getId();
+                return ndjson(consumer -> medicalRecordService.streamTimelineOfPatient(patientId, consumer));
+        }
+
+        // full-text search over the caller's own records (patient) or the records shared with them (doctor);
+        // q accepts web search syntax: quoted phrases, OR, and -word to exclude
+        @GetMapping("/search")
+        @PreAuthorize("hasAnyRole('PATIENT', 'DOCTOR')")
+        public CursorPage<MedicalRecordSearchHit> searchRecords(@AuthenticationPrincipal User user,
+                        @RequestParam String q,
+                        @RequestParam(required = false) String cursor,
+                        @RequestParam(defaultValue = "20") int size) {
+                return medicalRecordService.searchRecords(user, q, cursor, size);
         }
 
         @GetMapping("/{recordId}")
-        public Optional<MedicalRecord> getRecordById(@PathVariable Long recordId) {
+        public Optional<MedicalRecordResponse> getRecordById(@PathVariable Long recordId) {
                 return medicalRecordService.getRecordById(recordId);
         }
 
         @PutMapping("/{recordId}")
         @PreAuthorize("hasRole('DOCTOR')")
-        public MedicalRecord updateMedicalRecord(@PathVariable Long recordId, @RequestBody MedicalRecord updatedRecord,
-                        @AuthenticationPrincipal User user) {
+        public MedicalRecordResponse updateMedicalRecord(@PathVariable Long recordId,
+                        @RequestBody MedicalRecord updatedRecord, @AuthenticationPrincipal User user) {
                 updatedRecord.setId(recordId);
                 return medicalRecordService.saveRecord(updatedRecord);
         }
 
-        @Autowired
-        private org.example.backend.repository.MedicalRecordRepository medicalRecordRepository;
-        @Autowired
-        private org.example.backend.repository.DoctorRepository doctorRepository;
-
         @PostMapping("/share")
         @PreAuthorize("hasRole('PATIENT')")
         public void shareRecordWithDoctor(@RequestParam Long recordId, @RequestParam Long doctorId,
                         @AuthenticationPrincipal User user) {
                 // user is guaranteed to be a Patient due to role
-                MedicalRecord record = medicalRecordRepository.findById(recordId)
-                                .orElseThrow(() -> new RuntimeException("MedicalRecord not found"));
-                Doctor doctor = doctorRepository.findById(doctorId)
-                                .orElseThrow(() -> new RuntimeException("Doctor not found"));
-                medicalRecordService.shareRecordWithDoctor(record, doctor);
+                medicalRecordService.shareRecordWithDoctor((Patient) user, recordId, doctorId);
         }
 
         @GetMapping("/shared/doctor/me")
         @PreAuthorize("hasRole('DOCTOR')")
-        public List<org.example.backend.dto.MedicalRecordResponse> getSharedRecordsForDoctor(
-                        @AuthenticationPrincipal User user) {
+        public List<MedicalRecordResponse> getSharedRecordsForDoctor(@AuthenticationPrincipal User user) {
                 // user is guaranteed to be a Doctor due to role
                 Doctor doctor = (Doctor) user;
-                return medicalRecordService.getSharedRecordsForDoctor(doctor).stream()
-                                .map(record -> org.example.backend.dto.MedicalRecordResponse.builder()
-                                                .id(record.getId())
-                                                .content(record.getContent())
-                                                .date(record.getDate())
-                                                .doctorId(record.getDoctor() != null ? record.getDoctor().getId()
-                                                                : null)
-                                                .doctorName(record.getDoctor() != null
-                                                                ? record.getDoctor().getFullName()
-                                                                : null)
-                                                .patientId(record.getPatient() != null ? record.getPatient().getId()
-                                                                : null)
-                                                .patientName(record.getPatient() != null
-                                                                ? record.getPatient().getFullName()
-                                                                : null)
-                                                .build())
-                                .toList();
+                return medicalRecordService.getSharedRecordsForDoctor(doctor);
+        }
+
+        @GetMapping(value = "/shared/doctor/me/timeline", produces = MediaType.APPLICATION_JSON_VALUE)
+        @PreAuthorize("hasRole('DOCTOR')")
+        public CursorPage<MedicalRecordResponse> getSharedTimelineForDoctor(@AuthenticationPrincipal User user,
+                        @RequestParam(required = false) String cursor,
+                        @RequestParam(defaultValue = "20") int size) {
+                return medicalRecordService.getSharedTimelineOfDoctor((Doctor) user, cursor, size);
+        }
+
+        @GetMapping(value = "/shared/doctor/me/timeline", produces = MediaType.APPLICATION_NDJSON_VALUE)
+        @PreAuthorize("hasRole('DOCTOR')")
+        public ResponseEntity<StreamingResponseBody> streamSharedTimelineForDoctor(
+                        @AuthenticationPrincipal User user) {
+                Long doctorId = user.getId();
+                return ndjson(consumer -> medicalRecordService.streamSharedTimelineOfDoctor(doctorId, consumer));
         }
 
         @GetMapping("/shared/patient/me")
         @PreAuthorize("hasRole('PATIENT')")
-        public List<MedicalRecord> getSharedRecordsForPatient(@AuthenticationPrincipal User user) {
+        public List<MedicalRecordResponse> getSharedRecordsForPatient(@AuthenticationPrincipal User user) {
                 // user is guaranteed to be a Patient due to role
                 Patient patient = (Patient) user;
                 return medicalRecordService.getSharedRecordsForPatient(patient);
@@ -114,19 +130,30 @@ public class MedicalRecordController {
                         @AuthenticationPrincipal User user) {
                 System.out.println("Creating record: " + newRecord.toString());
                 Doctor doctor = (Doctor) user;
-                MedicalRecord record = medicalRecordService.addMedicalRecod(newRecord, doctor);
-                medicalRecordService.shareRecordWithDoctor(record, doctorRepository.findById(doctor.getId()).orElseThrow(
-                                () -> new RuntimeException("Doctor not found")
-                ));
+                medicalRecordService.addMedicalRecod(newRecord, doctor);
         }
 
         @PostMapping("/share-all")
         @PreAuthorize("hasRole('PATIENT')")
-        public void shareAllRecordsWithDoctor(@RequestParam Long doctorId, @AuthenticationPrincipal User user) {
+        public Map<String, Object> shareAllRecordsWithDoctor(@RequestParam Long doctorId,
+                        @AuthenticationPrincipal User user) {
                 // user is guaranteed to be a Patient due to role
                 Patient patient = (Patient) user;
-                Doctor doctor = doctorRepository.findById(doctorId)
-                                .orElseThrow(() -> new RuntimeException("Doctor not found"));
-                medicalRecordService.shareAllRecordsWithDoctor(patient, doctor);
+                return Map.of("shared", medicalRecordService.shareAllRecordsWithDoctor(patient, doctorId));
+        }
+
+        // Writes every record the source emits as one compact JSON line, as it is read from the database.
+        private ResponseEntity<StreamingResponseBody> ndjson(Consumer<Consumer<MedicalRecordResponse>> source) {
+                // the shared mapper pretty-prints, which would split a record over several lines
+                ObjectWriter writer = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+                StreamingResponseBody body = out -> source.accept(record -> {
+                        try {
+                                out.write(writer.writeValueAsBytes(record));
+                                out.write('\n');
+                        } catch (IOException ex) {
+                                throw new UncheckedIOException(ex);
+                        }
+                });
+                return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
         }
-}
\ No newline at end of file
+}
@@ -5,15 +5,24 @@ import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.example.backend.dto.CursorPage;
+import org.example.backend.dto.DoctorFacets;
 import org.example.backend.dto.DoctorMainView;
 import org.example.backend.dto.DoctorSearchRequest;
+import org.example.backend.dto.DoctorSuggestion;
+import org.example.backend.dto.EarliestAvailability;
 import org.example.backend.dto.UserMainView;
 import org.example.backend.model.User;
 import org.example.backend.service.PatientService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
@@ -21,6 +30,9 @@ import java.util.Map;
 @RequiredArgsConstructor
 @RequestMapping("/patient")
 public class PatientController {
+    // how long a client may reuse a typeahead answer before revalidating it with its ETag
+    private static final Duration TYPEAHEAD_MAX_AGE = Duration.ofSeconds(30);
+
     private final PatientService patientService;
 
     @GetMapping
@@ -56,6 +68,43 @@ public class PatientController {
         return patientService.doctorsSearch(searchRequest, page, size);
     }
 
+    // cursor-based alternative to the page/size search above; pass back nextCursor to get the following slice
+    @PostMapping("/doctors-search/scroll")
+    @PreAuthorize("hasRole('PATIENT')")
+    public CursorPage<DoctorMainView> scrollDoctors(@RequestBody @Valid DoctorSearchRequest searchRequest,
+                                                    @RequestParam(required = false) String cursor,
+                                                    @RequestParam(defaultValue = "10") int size){
+        return patientService.scrollDoctors(searchRequest, cursor, size);
+    }
+
+    // doctor counts per city, speciality, day and fee range, each under the other filters of the request
+    @PostMapping("/doctors-search/facets")
+    @PreAuthorize("hasRole('PATIENT')")
+    public DoctorFacets doctorFacets(@RequestBody @Valid DoctorSearchRequest searchRequest){
+        return patientService.doctorFacets(searchRequest);
+    }
+
+    // doctors ordered by their first date with free capacity between from (default today) and to (default +30 days)
+    @PostMapping("/doctors-search/earliest")
+    @PreAuthorize("hasRole('PATIENT')")
+    public List<EarliestAvailability> findEarliestAvailable(@RequestBody @Valid DoctorSearchRequest searchRequest,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "10") int size){
+        return patientService.findEarliestAvailable(searchRequest, from, to, size);
+    }
+
+    // Doctors whose name or street matches what the patient has typed so far. Responses carry an ETag (see
+    // WebConfiguration), so repeating a request whose answer has not changed costs a 304 with no body.
+    @GetMapping("/doctors-search/typeahead")
+    @PreAuthorize("hasRole('PATIENT')")
+    public ResponseEntity<List<DoctorSuggestion>> typeahead(@RequestParam String q,
+                                                            @RequestParam(defaultValue = "8") int limit){
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(TYPEAHEAD_MAX_AGE).cachePrivate())
+                .body(patientService.typeahead(q, limit));
+    }
+
     @GetMapping("/doctors/{doctorId}")
     @PreAuthorize("hasRole('PATIENT')")
     public DoctorMainView getDoctorById(@PathVariable Long doctorId){
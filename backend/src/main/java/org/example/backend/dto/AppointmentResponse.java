@@ -6,6 +6,11 @@ import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.example.backend.model.Appointment;
+import org.example.backend.model.City;
+import org.example.backend.model.Doctor;
+import org.example.backend.model.DoctorSpeciality;
+import org.example.backend.model.Patient;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
@@ -34,4 +39,33 @@ public class AppointmentResponse {
     private LocalTime doctorStartTime;
     private LocalTime doctorEndTime;
     private Double doctorConsultationFee;
+
+    // used by the JPQL constructor expressions in AppointmentRepository
+    public AppointmentResponse(Long id, LocalDate date, Long patientId, String patientName, String patientEmail,
+            Long doctorId, String doctorName, String doctorEmail, City doctorCity, String doctorStreet,
+            DoctorSpeciality doctorSpecialization, LocalTime doctorStartTime, LocalTime doctorEndTime,
+            Double doctorConsultationFee) {
+        this(id, date, patientId, patientName, patientEmail, doctorId, doctorName, doctorEmail, doctorCity.name(),
+                doctorStreet, doctorSpecialization.name(), doctorStartTime, doctorEndTime, doctorConsultationFee);
+    }
+
+    // response for an appointment written in this request, from the entities already loaded for it
+    public static AppointmentResponse of(Appointment appointment, Doctor doctor, Patient patient) {
+        return AppointmentResponse.builder()
+                .id(appointment.getId())
+                .date(appointment.getDate())
+                .patientId(patient.getId())
+                .patientName(patient.getFullName())
+                .patientEmail(patient.getEmail())
+                .doctorId(doctor.getId())
+                .doctorName(doctor.getFullName())
+                .doctorEmail(doctor.getEmail())
+                .doctorCity(doctor.getCity().name())
+                .doctorStreet(doctor.getStreet())
+                .doctorSpecialization(doctor.getDoctorSpeciality().name())
+                .doctorStartTime(doctor.getStartTime())
+                .doctorEndTime(doctor.getEndTime())
+                .doctorConsultationFee(doctor.getConsultationFee())
+                .build();
+    }
 }
@@ -0,0 +1,70 @@
+package org.example.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.example.backend.exception.ErrorMessage;
+import org.springframework.data.domain.Limit;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+// One slice of a keyset-paginated result. nextCursor is an opaque token holding the sort key of the last item;
+// it is null on the last slice. No total count is computed.
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class CursorPage<T> {
+    private static final String SEPARATOR = "|";
+
+    private List<T> content;
+    private String nextCursor;
+
+    // fetches one row more than requested; the extra row only tells whether another slice exists
+    public static Limit limit(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException(ErrorMessage.INVALID_PAGE_SIZE.getMessage());
+        }
+        return Limit.of(size + 1);
+    }
+
+    // rows must be fetched with limit(size)
+    public static <T> CursorPage<T> of(List<T> rows, int size, Function<T, String> cursorOf) {
+        if (rows.size() <= size) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> content = rows.subList(0, size);
+        return new CursorPage<>(content, cursorOf.apply(content.getLast()));
+    }
+
+    // free-text key parts must come last, since decode splits into a fixed number of parts
+    public static String encode(Object... keys) {
+        StringBuilder builder = new StringBuilder();
+        for (Object key : keys) {
+            if (!builder.isEmpty()) {
+                builder.append(SEPARATOR);
+            }
+            builder.append(key);
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(builder.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    // any malformed or tampered cursor is reported as a bad request
+    public static <K> K decode(String cursor, int parts, Function<String[], K> parser) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] keys = decoded.split("\\" + SEPARATOR, parts);
+            if (keys.length != parts) {
+                throw new IllegalArgumentException(ErrorMessage.INVALID_CURSOR.getMessage());
+            }
+            return parser.apply(keys);
+        } catch (RuntimeException ex) {
+            throw new IllegalArgumentException(ErrorMessage.INVALID_CURSOR.getMessage());
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package org.example.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+// One working day of a doctor in the availability calendar
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class DayAvailability {
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    private LocalDate date;
+
+    private int capacity;
+    private int remaining;
+}
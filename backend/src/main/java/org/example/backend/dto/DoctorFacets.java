@@ -0,0 +1,27 @@
+package org.example.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.example.backend.model.City;
+import org.example.backend.model.Day;
+import org.example.backend.model.DoctorSpeciality;
+import org.example.backend.model.FeeRange;
+
+import java.util.Map;
+
+// Doctor counts per filter value. Each facet is counted under all the other filters of the request but not its own,
+// so it shows how many doctors choosing that value instead would find.
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class DoctorFacets {
+    // doctors matching every filter of the request
+    private int total;
+    private Map<City, Integer> cities;
+    private Map<DoctorSpeciality, Integer> specialities;
+    private Map<Day, Integer> availableDays;
+    private Map<FeeRange, Integer> feeRanges;
+}
@@ -3,7 +3,9 @@ package org.example.backend.dto;
 import jakarta.validation.constraints.NotNull;
 import lombok.*;
 import org.example.backend.model.City;
+import org.example.backend.model.Day;
 import org.example.backend.model.DoctorSpeciality;
+import org.example.backend.model.FeeRange;
 
 
 @AllArgsConstructor
@@ -17,4 +19,33 @@ public class DoctorSearchRequest{
 
     @NotNull(message = "Must not be null")
     private DoctorSpeciality doctorSpeciality;
+
+    // optional: only doctors working on this day
+    private Day availableDay;
+
+    // optional: only doctors whose consultation fee falls in this range
+    private FeeRange feeRange;
+
+    public DoctorSearchRequest(City city, DoctorSpeciality doctorSpeciality) {
+        this(city, doctorSpeciality, null, null);
+    }
+
+    // the availability bit to filter on, 0 for any day
+    public int availableDayBit() {
+        return availableDay != null ? availableDay.bit() : 0;
+    }
+
+    // the days a result may fall on, every day when no availableDay is given
+    public int availableDayMask() {
+        return availableDay != null ? availableDay.bit() : Day.ALL_DAYS_MASK;
+    }
+
+    // fee bounds to filter on, every fee when no feeRange is given
+    public double minFee() {
+        return feeRange != null ? feeRange.min() : 0;
+    }
+
+    public double maxFee() {
+        return feeRange != null ? feeRange.max() : Double.MAX_VALUE;
+    }
 }
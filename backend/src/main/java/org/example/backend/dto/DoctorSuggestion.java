@@ -0,0 +1,21 @@
+package org.example.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.example.backend.model.City;
+import org.example.backend.model.DoctorSpeciality;
+
+// One typeahead entry: just enough to label the suggestion and open the doctor's profile
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class DoctorSuggestion {
+    private Long id;
+    private String fullName;
+    private String street;
+    private City city;
+    private DoctorSpeciality doctorSpeciality;
+}
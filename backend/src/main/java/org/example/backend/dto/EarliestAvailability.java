@@ -0,0 +1,23 @@
+package org.example.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+// A doctor with the first date in the requested window that still has free capacity
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class EarliestAvailability {
+    private DoctorMainView doctor;
+
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    private LocalDate date;
+
+    private int remaining;
+}
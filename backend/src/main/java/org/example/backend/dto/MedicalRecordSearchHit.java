@@ -0,0 +1,20 @@
+package org.example.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// A medical record matching a full-text search. headline holds the best matching fragments of the content with
+// the matched words wrapped in <mark></mark>; hits are ordered by rank, highest first.
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class MedicalRecordSearchHit {
+    private MedicalRecordResponse record;
+
+    private String headline;
+
+    private float rank;
+}
@@ -0,0 +1,6 @@
+package org.example.backend.event;
+
+// Published when a doctor is created, updated or deleted. Listeners that keep an in-memory view of doctors reload
+// the doctor once the change is committed, or drop it when it no longer exists.
+public record DoctorChangedEvent(Long doctorId) {
+}
@@ -0,0 +1,6 @@
+package org.example.backend.event;
+
+// Published after doctors were written in bulk without a DoctorChangedEvent per doctor (e.g. by DataSeeder).
+// Listeners that keep an in-memory view of doctors reload it completely.
+public record DoctorsImportedEvent(int doctors) {
+}
@@ -0,0 +1,6 @@
+package org.example.backend.event;
+
+// Published when a user's account data (email, password, profile) changes or the account is deleted. PrincipalCache
+// drops the user once the change is committed, so that no request can cache the row as it was before the change.
+public record UserChangedEvent(Long userId) {
+}
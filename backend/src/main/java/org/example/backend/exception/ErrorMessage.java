@@ -2,6 +2,11 @@ package org.example.backend.exception;
 
 import lombok.Getter;
 
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 @Getter
 public enum ErrorMessage {
     JWT_ERROR("Unauthorized access. Login again."),
@@ -11,11 +16,26 @@ public enum ErrorMessage {
     DOCTOR_CAPACITY_FULL("Doctor has reached maximum patient capacity for this date."),
     APPOINTMENT_EXISTS("Appointment already exists for this doctor on this date."),
     APPOINTMENT_NOT_FOUND("Appointment not found."),
-    APPOINTMENT_PAST("Cannot modify or cancel past appointments.");
+    APPOINTMENT_PAST("Cannot modify or cancel past appointments."),
+    MEDICAL_RECORD_NOT_FOUND("Medical record not found."),
+    INVALID_CURSOR("Invalid pagination cursor."),
+    INVALID_PAGE_SIZE("Page size must be greater than zero."),
+    INVALID_SEARCH_QUERY("Search query must not be blank."),
+    INVALID_DATE_RANGE("End date must not be before start date, and the range must not exceed 92 days."),
+    INVALID_WORKING_HOURS("End time must be after start time"),
+    SERVICE_BUSY("Server is busy. Try again shortly.");
+
+    private static final Map<String, ErrorMessage> BY_MESSAGE = Arrays.stream(values())
+            .collect(Collectors.toMap(ErrorMessage::getMessage, Function.identity()));
 
     private String message;
 
     ErrorMessage(String message) {
         this.message = message;
     }
+
+    // exceptions carry only the message text; null when it is not one of these messages
+    public static ErrorMessage fromMessage(String message) {
+        return message == null ? null : BY_MESSAGE.get(message);
+    }
 }
@@ -2,10 +2,14 @@ package org.example.backend.exception;
 
 import com.fasterxml.jackson.databind.exc.InvalidFormatException;
 import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.persistence.EntityExistsException;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.ConstraintViolationException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -15,7 +19,10 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
 @RestControllerAdvice
+@RequiredArgsConstructor
 public class GlobalExceptionHandler {
+    private final MeterRegistry meterRegistry;
+
     // Validation errors (fired by @Valid)
     @ExceptionHandler(MethodArgumentNotValidException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
@@ -28,7 +35,7 @@ public class GlobalExceptionHandler {
                         .map(error -> error.getDefaultMessage())
                         .orElse("Validation error occurred"));
         // return only message of first error
-        return new ErrorResponse(errorMessage, HttpStatus.BAD_REQUEST.value());
+        return error(errorMessage, HttpStatus.BAD_REQUEST);
     }
 
     // Validation errors (fired by validator.validate())
@@ -40,7 +47,7 @@ public class GlobalExceptionHandler {
                 .map(violation -> violation.getMessage())
                 .orElse("Validation error occurred");
         // return only message of first error
-        return new ErrorResponse(errorMessage, HttpStatus.BAD_REQUEST.value());
+        return error(errorMessage, HttpStatus.BAD_REQUEST);
     }
 
     // Jackson deserialization errors when using ObjectMapper
@@ -53,7 +60,7 @@ public class GlobalExceptionHandler {
                 "Invalid value '%s'. Expected type: %s.",
                 value, targetType
         );
-        return new ErrorResponse(message, HttpStatus.BAD_REQUEST.value());
+        return error(message, HttpStatus.BAD_REQUEST);
     }
 
     // JSON parsing errors when parsing request body
@@ -69,27 +76,27 @@ public class GlobalExceptionHandler {
                     invalidFormatException.getTargetType().getSimpleName()
             );
         }
-        return new ErrorResponse(message, HttpStatus.BAD_REQUEST.value());
+        return error(message, HttpStatus.BAD_REQUEST);
     }
 
     @ExceptionHandler(IllegalArgumentException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ErrorResponse handleIllegalArgumentException(IllegalArgumentException ex){
-        return new ErrorResponse(ex.getMessage(), HttpStatus.BAD_REQUEST.value());
+        return error(ex.getMessage(), HttpStatus.BAD_REQUEST);
     }
 
     // JPA entity already exists
     @ExceptionHandler(EntityExistsException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ErrorResponse handleEntityExistsException(EntityExistsException ex) {
-        return new ErrorResponse(ex.getMessage(), HttpStatus.BAD_REQUEST.value());
+        return error(ex.getMessage(), HttpStatus.BAD_REQUEST);
     }
 
     // Wrong email/password
     @ExceptionHandler(BadCredentialsException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ErrorResponse handleBadCredentialsException(BadCredentialsException ex) {
-        return new ErrorResponse("Email or password is not correct", HttpStatus.BAD_REQUEST.value());
+        return error("Email or password is not correct", HttpStatus.BAD_REQUEST);
     }
 
     // JWT errors (expired, invalid signature, malformed, etc.)
@@ -97,27 +104,44 @@ public class GlobalExceptionHandler {
     @ResponseStatus(HttpStatus.UNAUTHORIZED)
     public ErrorResponse handleJwtException(JwtException jwtException) {
         System.out.println(jwtException.getMessage());
-        return new ErrorResponse(jwtException.getMessage(), HttpStatus.UNAUTHORIZED.value());
+        return error(jwtException.getMessage(), HttpStatus.UNAUTHORIZED);
     }
 
     // Forbidden (user authenticated but lacks authority/role)
     @ExceptionHandler(AccessDeniedException.class)
     @ResponseStatus(HttpStatus.FORBIDDEN)
     public ErrorResponse handleAccessDeniedException(AccessDeniedException ex) {
-        return new ErrorResponse("Access is denied", HttpStatus.FORBIDDEN.value());
+        return error("Access is denied", HttpStatus.FORBIDDEN);
     }
 
     // JPA entity not found
     @ExceptionHandler(EntityNotFoundException.class)
     @ResponseStatus(HttpStatus.NOT_FOUND)
     public ErrorResponse handleEntityNotFoundException(EntityNotFoundException ex) {
-        return new ErrorResponse(ex.getMessage(), HttpStatus.NOT_FOUND.value());
+        return error(ex.getMessage(), HttpStatus.NOT_FOUND);
+    }
+
+    // Bounded resource saturated (e.g. password hashing pool); the client should back off and retry
+    @ExceptionHandler(ServiceBusyException.class)
+    public ResponseEntity<ErrorResponse> handleServiceBusyException(ServiceBusyException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, ex.getRetryAfter().toSeconds())))
+                .body(error(ex.getMessage(), HttpStatus.SERVICE_UNAVAILABLE));
     }
 
     // Catch-all handler (fallback)
     @ExceptionHandler(RuntimeException.class)
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public ErrorResponse handleRuntimeException(RuntimeException ex) {
-        return new ErrorResponse(ex.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR.value());
+        return error(ex.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    // counts every error response as api.errors, tagged with the ErrorMessage constant (OTHER for any other text)
+    private ErrorResponse error(String message, HttpStatus status) {
+        ErrorMessage errorMessage = ErrorMessage.fromMessage(message);
+        meterRegistry.counter("api.errors",
+                "error", errorMessage == null ? "OTHER" : errorMessage.name(),
+                "status", String.valueOf(status.value())).increment();
+        return new ErrorResponse(message, status.value());
     }
 }
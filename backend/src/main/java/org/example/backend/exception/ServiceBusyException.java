@@ -0,0 +1,16 @@
+package org.example.backend.exception;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+// Thrown when a bounded resource (e.g. the password hashing pool) is saturated; mapped to 503 with Retry-After.
+@Getter
+public class ServiceBusyException extends RuntimeException {
+    private final Duration retryAfter;
+
+    public ServiceBusyException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+}
@@ -1,12 +1,13 @@
 package org.example.backend.jwt;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
 import org.example.backend.exception.ErrorMessage;
 import org.example.backend.model.User;
 import org.example.backend.repository.UserRepository;
@@ -19,11 +20,24 @@ import org.springframework.web.filter.OncePerRequestFilter;
 import java.io.IOException;
 
 @Component
-@RequiredArgsConstructor
 public class JwtFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
+    private final Timer authenticationTimer;
+
+    public JwtFilter(JwtService jwtService, UserRepository userRepository, PrincipalCache principalCache,
+                     MeterRegistry meterRegistry) {
+        this.jwtService = jwtService;
+        this.userRepository = userRepository;
+        this.principalCache = principalCache;
+        // token verification and principal lookup only; the whole request is timed as http.server.requests
+        this.authenticationTimer = Timer.builder("jwt.authentication")
+                .description("Time to authenticate a request from its token")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
 
     @Override
     protected boolean shouldNotFilter(HttpServletRequest request) {
@@ -44,9 +58,13 @@ public class JwtFilter extends OncePerRequestFilter {
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
             FilterChain filterChain) throws ServletException, IOException {
+        authenticationTimer.record(() -> authenticate(request));
+        filterChain.doFilter(request, response);
+    }
 
+    private void authenticate(HttpServletRequest request) {
         String token = null;
-        Long id = null;
+        VerifiedToken verifiedToken = null;
 
         if (request.getCookies() != null) {
             for (Cookie cookie : request.getCookies()) {
@@ -65,15 +83,19 @@ public class JwtFilter extends OncePerRequestFilter {
         }
 
         if (token != null) {
-            id = jwtService.extractId(token);
+            // the token is parsed and its signature checked once, the claims are reused below
+            verifiedToken = jwtService.verify(token);
         }
         // check if id is extracted and the user is not yet authenticated and set in the security context
-        if (id != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            User user = userRepository.findById(id).orElseThrow(
-                    () -> new EntityNotFoundException(ErrorMessage.USER_NOT_FOUND.getMessage())
-            );
+        if (verifiedToken != null && verifiedToken.id() != null
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            // the database is hit only on the first request of each token, later requests are served from memory
+            User user = principalCache.get(verifiedToken.id(), verifiedToken.issuedAt(),
+                    id -> userRepository.findById(id).orElseThrow(
+                            () -> new EntityNotFoundException(ErrorMessage.USER_NOT_FOUND.getMessage())
+                    ));
 
-            if (jwtService.validateToken(token, user)) {
+            if (verifiedToken.matches(user)) {
                 // create an authentication object using the user's details and set it in the security context
                 // as, controller methods can use @AuthenticationPrincipal to access the authenticated user in authentication object in the security context
                 // and @PreAuthorize can use it for authorization
@@ -84,7 +106,5 @@ public class JwtFilter extends OncePerRequestFilter {
                 SecurityContextHolder.getContext().setAuthentication(authenticationToken);
             }
         }
-
-        filterChain.doFilter(request, response);
     }
 }
@@ -1,6 +1,9 @@
 package org.example.backend.jwt;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
@@ -9,23 +12,37 @@ import org.example.backend.model.User;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
-import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Objects;
-import java.util.function.Function;
 
 @Service
 public class JwtService {
 
-    @Value("${jwt.secret}")
-    private String secretKey;
-
-    @Value("${jwt.expiration-ms}")
-    private long jwtExpirationMs;
-
+    private final long jwtExpirationMs;
+
+    // key and parser are immutable and thread-safe, so they are built once instead of on every call
+    private final SecretKey signingKey;
+    private final JwtParser jwtParser;
+
+    // recently verified tokens, a client sending the same token again skips the HMAC check
+    // (keyed by the whole token, so a reused signature with a different payload is never a hit)
+    private final Cache<String, VerifiedToken> verifiedTokens;
+
+    public JwtService(@Value("${jwt.secret}") String secretKey,
+                      @Value("${jwt.expiration-ms}") long jwtExpirationMs,
+                      @Value("${jwt.verified-cache.max-size:4096}") long verifiedCacheSize) {
+        this.jwtExpirationMs = jwtExpirationMs;
+        this.signingKey = Keys.hmacShaKeyFor(secretKey.getBytes(StandardCharsets.UTF_8));
+        this.jwtParser = Jwts.parserBuilder()    // create a JWT parser
+                .setSigningKey(signingKey)       // set the secret key (to verify signature)
+                .build();                        // build the parser
+        this.verifiedTokens = verifiedCacheSize > 0
+                ? Caffeine.newBuilder().maximumSize(verifiedCacheSize).build()
+                : null;
+    }
 
     public String generateToken(Long id, String email, Role role) {
         Map<String, Object> claims = new HashMap<>();
@@ -33,63 +50,62 @@ public class JwtService {
         // claims accept only basic types (number, string) not (enum and complex structure)
         // so, we get string value from enum role value
         claims.put("role", role.name());
+        long now = System.currentTimeMillis();
         return Jwts.builder()
                 .setClaims(claims)
                 .setSubject(email)
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + jwtExpirationMs))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + jwtExpirationMs))
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
+    // Parse the token once (validate signature + structure) and keep the claims the application needs
+    public VerifiedToken verify(String token) {
+        if (verifiedTokens != null) {
+            VerifiedToken cached = verifiedTokens.getIfPresent(token);
+            if (cached != null && !cached.isExpired()) {
+                return cached;
+            }
+        }
+        // expired or tampered tokens throw here, the same way as before caching
+        VerifiedToken verified = toVerifiedToken(extractAllClaims(token));
+        if (verifiedTokens != null) {
+            verifiedTokens.put(token, verified);
+        }
+        return verified;
+    }
+
     // Extract all claims from token
     public Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()                 // create a JWT parser
-                .setSigningKey(getSigningKey())     // set the secret key (to verify signature)
-                .build()                            // build the parser
+        return jwtParser
                 .parseClaimsJws(token)              // parse the token (validate signature + structure)
                 .getBody();                         // extract the body (claims)
     }
 
-    // Extract a specific claim (generic template method)
-    private <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
-    }
-
     public String extractEmail(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return verify(token).email();
     }
 
     public Long extractId(String token) {
-        return extractClaim(token, claims -> claims.get("id", Long.class));
+        return verify(token).id();
     }
 
     public Role extractRole(String token) {
-        String roleName = extractClaim(token, claims -> claims.get("role", String.class));
-        return Role.valueOf(roleName);
-    }
-
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
-    }
-
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+        return verify(token).role();
     }
 
     public boolean validateToken(String token, User user) {
-        final Long id = extractId(token);
-        final Role role = extractRole(token);
-        final String email = extractEmail(token);
-        return (Objects.equals(id, user.getId()) &&
-                role == user.getRole() &&
-                Objects.equals(email, user.getEmail()) &&
-                !isTokenExpired(token));
+        return verify(token).matches(user);
     }
 
-    private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(secretKey.getBytes(StandardCharsets.UTF_8));
+    private VerifiedToken toVerifiedToken(Claims claims) {
+        String roleName = claims.get("role", String.class);
+        return new VerifiedToken(
+                claims.get("id", Long.class),
+                roleName != null ? Role.valueOf(roleName) : null,
+                claims.getSubject(),
+                claims.getIssuedAt(),
+                claims.getExpiration());
     }
 }
-
@@ -0,0 +1,82 @@
+package org.example.backend.jwt;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.example.backend.event.UserChangedEvent;
+import org.example.backend.model.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+// Keeps authenticated users in memory so that JwtFilter does not query the users table on every request.
+// Entries are keyed by user id and token issue time, so a new login never reuses a stale principal,
+// and they live no longer than the token itself.
+// The cache is asynchronous so that the user query never runs inside the map's compute lock: a synchronous Caffeine
+// loader executes under a synchronized bin lock, which pins the carrier thread when requests run on virtual threads.
+@Component
+public class PrincipalCache {
+
+    private final AsyncCache<PrincipalKey, User> cache;
+
+    public PrincipalCache(@Value("${jwt.expiration-ms}") long jwtExpirationMs,
+                          @Value("${jwt.principal-cache.max-size:10000}") long maxSize,
+                          MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(jwtExpirationMs))
+                .recordStats()
+                .buildAsync();
+        // exposes hit, miss and eviction counters as cache.* metrics with tag cache=principals
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "principals");
+    }
+
+    // returns the cached user or loads it once (concurrent callers for the same key wait for the same load)
+    public User get(Long id, Date issuedAt, Function<Long, User> loader) {
+        CompletableFuture<User> loading = new CompletableFuture<>();
+        CompletableFuture<User> user = cache.get(new PrincipalKey(id, issuedAt.getTime()), (_, _) -> loading);
+        if (user == loading) {
+            // this caller won the race: load outside the map lock, failed loads are dropped from the cache
+            try {
+                loading.complete(loader.apply(id));
+            } catch (RuntimeException ex) {
+                loading.completeExceptionally(ex);
+            }
+        }
+        try {
+            return user.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw ex;
+        }
+    }
+
+    // must be called whenever a user's data changes, so the next request reloads it
+    public void evict(Long id) {
+        cache.asMap().keySet().removeIf(key -> key.id().equals(id));
+    }
+
+    // After the commit, not inside the transaction: a request loading the user between an eviction and the commit
+    // would read the old row and cache it for the rest of its token's lifetime. Loads still running are dropped too.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        evict(event.userId());
+    }
+
+    public CacheStats stats() {
+        return cache.synchronous().stats();
+    }
+
+    private record PrincipalKey(Long id, long issuedAt) {
+    }
+}
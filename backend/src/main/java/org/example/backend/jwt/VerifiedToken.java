@@ -0,0 +1,23 @@
+package org.example.backend.jwt;
+
+import org.example.backend.model.Role;
+import org.example.backend.model.User;
+
+import java.util.Date;
+import java.util.Objects;
+
+// Claims of a token whose signature has already been checked, so callers can read them without parsing again
+public record VerifiedToken(Long id, Role role, String email, Date issuedAt, Date expiration) {
+
+    public boolean isExpired() {
+        return expiration.before(new Date());
+    }
+
+    // true if the token still describes the given user and has not expired
+    public boolean matches(User user) {
+        return Objects.equals(id, user.getId()) &&
+                role == user.getRole() &&
+                Objects.equals(email, user.getEmail()) &&
+                !isExpired();
+    }
+}
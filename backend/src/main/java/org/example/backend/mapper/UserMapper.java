@@ -0,0 +1,131 @@
+package org.example.backend.mapper;
+
+import org.example.backend.dto.DoctorMainView;
+import org.example.backend.dto.DoctorRegisterRequest;
+import org.example.backend.dto.UserMainView;
+import org.example.backend.dto.UserRegisterRequest;
+import org.example.backend.model.Day;
+import org.example.backend.model.Doctor;
+import org.example.backend.model.Patient;
+import org.example.backend.model.User;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+// Explicit entity <-> DTO conversions (plain getters and setters, no reflection on the request path).
+// Every DTO property must be copied here; the password is never copied into a view (it is write-only in JSON).
+@Component
+public class UserMapper {
+
+    public UserMainView toUserMainView(User user) {
+        UserMainView view = new UserMainView(user.getId(), user.getRole());
+        view.setFullName(user.getFullName());
+        view.setEmail(user.getEmail());
+        view.setPhoneNumber(user.getPhoneNumber());
+        return view;
+    }
+
+    public DoctorMainView toDoctorMainView(Doctor doctor) {
+        DoctorMainView view = new DoctorMainView(doctor.getId(), doctor.getRole());
+        view.setFullName(doctor.getFullName());
+        view.setEmail(doctor.getEmail());
+        view.setPhoneNumber(doctor.getPhoneNumber());
+        view.setCity(doctor.getCity());
+        view.setStreet(doctor.getStreet());
+        view.setDoctorSpeciality(doctor.getDoctorSpeciality());
+        view.setInfo(doctor.getInfo());
+        view.setPatientNumber(doctor.getPatientNumber());
+        view.setStartTime(doctor.getStartTime());
+        view.setEndTime(doctor.getEndTime());
+        view.setConsultationFee(doctor.getConsultationFee());
+        // from the order column, so mapping a search page never loads the doctor_available_days collection
+        view.setAvailableDays(Day.fromOrder(doctor.getAvailableDaysOrder()));
+        return view;
+    }
+
+    public <T extends User> T toUser(UserRegisterRequest request, Class<T> targetClass) {
+        if (targetClass == Doctor.class && request instanceof DoctorRegisterRequest doctorRequest) {
+            return targetClass.cast(toDoctor(doctorRequest));
+        }
+        if (targetClass == Patient.class) {
+            return targetClass.cast(toPatient(request));
+        }
+        throw new IllegalArgumentException("Cannot map " + request.getClass().getSimpleName()
+                + " to " + targetClass.getSimpleName());
+    }
+
+    public Patient toPatient(UserRegisterRequest request) {
+        return Patient.builder()
+                .fullName(request.getFullName())
+                .email(request.getEmail())
+                .password(request.getPassword())
+                .phoneNumber(request.getPhoneNumber())
+                .build();
+    }
+
+    public Doctor toDoctor(DoctorRegisterRequest request) {
+        return Doctor.builder()
+                .fullName(request.getFullName())
+                .email(request.getEmail())
+                .password(request.getPassword())
+                .phoneNumber(request.getPhoneNumber())
+                .city(request.getCity())
+                .street(request.getStreet())
+                .doctorSpeciality(request.getDoctorSpeciality())
+                .info(request.getInfo())
+                .patientNumber(request.getPatientNumber())
+                .startTime(request.getStartTime())
+                .endTime(request.getEndTime())
+                .consultationFee(request.getConsultationFee())
+                .availableDays(copy(request.getAvailableDays()))
+                .build();
+    }
+
+    // Copies the properties named in fields (the keys of a merge patch) from the patch onto the entity; other names
+    // are ignored. Dirty checking then updates only the columns whose values changed. The password is left to the
+    // caller, which has to encode it.
+    public void applyPatch(UserRegisterRequest patch, Set<String> fields, User user) {
+        for (String field : fields) {
+            switch (field) {
+                case "fullName" -> user.setFullName(patch.getFullName());
+                case "email" -> user.setEmail(patch.getEmail());
+                case "phoneNumber" -> user.setPhoneNumber(patch.getPhoneNumber());
+                default -> {
+                }
+            }
+        }
+    }
+
+    public void applyPatch(DoctorRegisterRequest patch, Set<String> fields, Doctor doctor) {
+        applyPatch((UserRegisterRequest) patch, fields, doctor);
+        for (String field : fields) {
+            switch (field) {
+                case "city" -> doctor.setCity(patch.getCity());
+                case "street" -> doctor.setStreet(patch.getStreet());
+                case "doctorSpeciality" -> doctor.setDoctorSpeciality(patch.getDoctorSpeciality());
+                case "info" -> doctor.setInfo(patch.getInfo());
+                case "patientNumber" -> doctor.setPatientNumber(patch.getPatientNumber());
+                case "startTime" -> doctor.setStartTime(patch.getStartTime());
+                case "endTime" -> doctor.setEndTime(patch.getEndTime());
+                case "consultationFee" -> doctor.setConsultationFee(patch.getConsultationFee());
+                // a new list makes Hibernate rewrite every row of doctor_available_days, so only when the days differ;
+                // the same days in another order only change the order column
+                case "availableDays" -> {
+                    if (Day.toMask(patch.getAvailableDays()) != doctor.getAvailableDaysMask()) {
+                        doctor.setAvailableDays(copy(patch.getAvailableDays()));
+                    } else {
+                        doctor.setAvailableDaysOrder(Day.toOrder(patch.getAvailableDays()));
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+    }
+
+    private static <E> List<E> copy(List<E> list) {
+        return list != null ? new ArrayList<>(list) : null;
+    }
+}
@@ -1,5 +1,11 @@
 package org.example.backend.model;
 
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+// Declared in ISO order, so bit() of a day is 1 << (ISO day of week - 1), the same value SQL computes from isodow
 public enum Day {
     MONDAY,
     TUESDAY,
@@ -7,5 +13,54 @@ public enum Day {
     THURSDAY,
     FRIDAY,
     SATURDAY,
-    SUNDAY
+    SUNDAY;
+
+    private static final Day[] VALUES = values();
+    public static final int ALL_DAYS_MASK = (1 << VALUES.length) - 1;
+
+    public int bit() {
+        return 1 << ordinal();
+    }
+
+    public static Day of(DayOfWeek dayOfWeek) {
+        return VALUES[dayOfWeek.ordinal()];
+    }
+
+    public static int toMask(Collection<Day> days) {
+        int mask = 0;
+        if (days != null) {
+            for (Day day : days) {
+                if (day != null) {
+                    mask |= day.bit();
+                }
+            }
+        }
+        return mask;
+    }
+
+    // The distinct days in their given order, 3 bits per day (ordinal + 1) from the low end; 0 ends the list.
+    // Seven days take 21 bits.
+    public static int toOrder(Collection<Day> days) {
+        int order = 0;
+        int seen = 0;
+        int shift = 0;
+        if (days != null) {
+            for (Day day : days) {
+                if (day != null && (seen & day.bit()) == 0) {
+                    seen |= day.bit();
+                    order |= (day.ordinal() + 1) << shift;
+                    shift += 3;
+                }
+            }
+        }
+        return order;
+    }
+
+    public static List<Day> fromOrder(int order) {
+        List<Day> days = new ArrayList<>(VALUES.length);
+        for (int rest = order; rest != 0; rest >>>= 3) {
+            days.add(VALUES[(rest & 7) - 1]);
+        }
+        return days;
+    }
 }
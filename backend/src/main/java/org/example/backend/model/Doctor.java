@@ -11,7 +11,10 @@ import jakarta.validation.constraints.Size;
 import lombok.*;
 import lombok.experimental.SuperBuilder;
 import org.example.backend.validator.FieldsComparison;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.DynamicUpdate;
 import org.example.backend.validator.NoDuplicates;
+import org.example.backend.validator.OnInsert;
 
 import java.time.LocalTime;
 import java.util.*;
@@ -24,6 +27,8 @@ import java.util.*;
 @Entity
 @Table(name = "doctors")
 @DiscriminatorValue("DOCTOR")
+// only the changed columns of doctors, like User does for users
+@DynamicUpdate
 @FieldsComparison(smallerField = "startTime", biggerField = "endTime", message = "End time must be after start time")
 @JsonIdentityInfo(generator = ObjectIdGenerators.PropertyGenerator.class, property = "id")
 public class Doctor extends User {
@@ -82,25 +87,46 @@ public class Doctor extends User {
     @Column(nullable = false)
     private Double consultationFee;
 
+    // the checks that iterate the days run on insert only: on update they would load the lazy collection
     @NotNull(message = "Must not be null")
-    @Size(max = 7, message = "No more than 7 days")
-    @NoDuplicates
+    @Size(max = 7, message = "No more than 7 days", groups = OnInsert.class)
+    @NoDuplicates(groups = OnInsert.class)
     @ElementCollection(targetClass = Day.class)
+    @BatchSize(size = 50)
     @Enumerated(EnumType.STRING)
     @CollectionTable(name = "doctor_available_days", joinColumns = @JoinColumn(name = "doctor_id"))
     @Column(name = "day", nullable = false)
-    private List<@NotNull(message = "Must not be null") Day> availableDays;
+    private List<@NotNull(message = "Must not be null", groups = OnInsert.class) Day> availableDays;
+
+    // The same days as one Day.bit() per day, so reads and availability checks never load the collection.
+    // Kept in sync by setAvailableDays and the builder; replace the list instead of modifying it in place.
+    @Column(name = "available_days_mask", nullable = false)
+    private int availableDaysMask;
+
+    // The days again in the order they were given (Day.toOrder), which is the order views list them in.
+    @Column(name = "available_days_order", nullable = false)
+    private int availableDaysOrder;
 
     @OneToMany(mappedBy = "doctor", cascade = { CascadeType.PERSIST, CascadeType.MERGE }, orphanRemoval = true)
     private List<Appointment> appointments;
 
     @ManyToMany
     @JoinTable(name = "doctor_medical_records", joinColumns = @JoinColumn(name = "doctor_id"), inverseJoinColumns = @JoinColumn(name = "medical_record_id"))
-    private List<MedicalRecord> accessibleMedicalRecords;
+    private Set<MedicalRecord> accessibleMedicalRecords;
 
     @OneToMany(mappedBy = "doctor", cascade = { CascadeType.PERSIST, CascadeType.MERGE }, orphanRemoval = true)
     private List<MedicalRecord> medicalRecords;
 
+    public void setAvailableDays(List<Day> availableDays) {
+        this.availableDays = availableDays;
+        this.availableDaysMask = Day.toMask(availableDays);
+        this.availableDaysOrder = Day.toOrder(availableDays);
+    }
+
+    public boolean isAvailableOn(Day day) {
+        return (availableDaysMask & day.bit()) != 0;
+    }
+
     @Override
     public Role getRole() {
         return Role.DOCTOR;
@@ -117,10 +143,20 @@ public class Doctor extends User {
                 ", startTime=" + startTime +
                 ", endTime=" + endTime +
                 ", consultationFee=" + consultationFee +
-                ", availableDays=" + availableDays +
+                ", availableDays=" + Day.fromOrder(availableDaysOrder) +
                 ", appointmentsCount=" + (appointments != null ? appointments.size() : 0) +
                 ", medicalRecordsCount=" + (medicalRecords != null ? medicalRecords.size() : 0) +
                 ", " + super.toString() +
                 ")";
     }
+
+    public static abstract class DoctorBuilder<C extends Doctor, B extends DoctorBuilder<C, B>>
+            extends User.UserBuilder<C, B> {
+        public B availableDays(List<Day> availableDays) {
+            this.availableDays = availableDays;
+            this.availableDaysMask = Day.toMask(availableDays);
+            this.availableDaysOrder = Day.toOrder(availableDays);
+            return self();
+        }
+    }
 }
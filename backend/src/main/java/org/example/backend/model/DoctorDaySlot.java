@@ -0,0 +1,23 @@
+package org.example.backend.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+// Number of appointments booked for one doctor on one date. Bookings take a slot with a conditional UPDATE
+// on this row, so the capacity check and the increment are a single atomic statement.
+@AllArgsConstructor
+@NoArgsConstructor
+@Setter
+@Getter
+@Builder
+@ToString
+@Entity
+@Table(name = "doctor_day_slots")
+public class DoctorDaySlot {
+
+    @EmbeddedId
+    private DoctorDaySlotId id;
+
+    @Column(nullable = false)
+    private Integer booked;
+}
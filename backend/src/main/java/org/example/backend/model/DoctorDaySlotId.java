@@ -0,0 +1,23 @@
+package org.example.backend.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@EqualsAndHashCode
+@ToString
+@Embeddable
+public class DoctorDaySlotId implements Serializable {
+    @Column(name = "doctor_id", nullable = false)
+    private Long doctorId;
+
+    @Column(nullable = false)
+    private LocalDate date;
+}
@@ -0,0 +1,36 @@
+package org.example.backend.model;
+
+// Consultation fee buckets of the doctor search, each from min (inclusive) to max (exclusive)
+public enum FeeRange {
+    UNDER_200(0, 200),
+    FROM_200_TO_350(200, 350),
+    FROM_350_TO_500(350, 500),
+    FROM_500(500, Double.MAX_VALUE);
+
+    private static final FeeRange[] VALUES = values();
+
+    private final double min;
+    private final double max;
+
+    FeeRange(double min, double max) {
+        this.min = min;
+        this.max = max;
+    }
+
+    public double min() {
+        return min;
+    }
+
+    public double max() {
+        return max;
+    }
+
+    public static FeeRange of(double fee) {
+        for (FeeRange range : VALUES) {
+            if (fee < range.max) {
+                return range;
+            }
+        }
+        return FROM_500;
+    }
+}
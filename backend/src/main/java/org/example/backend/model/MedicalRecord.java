@@ -10,8 +10,8 @@ import jakarta.validation.constraints.Size;
 import lombok.*;
 
 import java.time.LocalDate;
-import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 
 @AllArgsConstructor
 @NoArgsConstructor
@@ -39,7 +39,8 @@ public class MedicalRecord {
     }
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "medical_records_seq")
+    @SequenceGenerator(name = "medical_records_seq", sequenceName = "medical_records_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank(message = "Must be not null")
@@ -54,7 +55,7 @@ public class MedicalRecord {
 
     // Doctors who have access to this record
     @ManyToMany(mappedBy = "accessibleMedicalRecords")
-    private List<Doctor> sharedWithDoctors;
+    private Set<Doctor> sharedWithDoctors;
 
     // The doctor who created the record
     @ManyToOne(fetch = FetchType.LAZY)
@@ -1,21 +1,56 @@
 package org.example.backend.repository;
 
+import org.example.backend.dto.AppointmentResponse;
 import org.example.backend.model.Appointment;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface AppointmentRepository extends JpaRepository<Appointment, Long> {
+    // Builds the response rows in a single SELECT joining appointments, patients, doctors and their users rows,
+    // so a page costs one round trip and no lazy association is ever initialized.
+    String RESPONSE_SELECT = """
+            SELECT new org.example.backend.dto.AppointmentResponse(
+                a.id, a.date, p.id, p.fullName, p.email,
+                d.id, d.fullName, d.email, d.city, d.street, d.doctorSpeciality,
+                d.startTime, d.endTime, d.consultationFee)
+            FROM Appointment a JOIN a.patient p JOIN a.doctor d
+            """;
+
     Integer countByDoctorIdAndDate(Long doctorId, LocalDate date);
 
     Optional<Appointment> findByDoctorIdAndPatientIdAndDate(Long doctorId, Long patientId, LocalDate date);
 
-    Page<Appointment> findByPatientIdAndDateGreaterThanEqual(Long patientId, LocalDate date, Pageable pageable);
+    // a List result skips the count query a Page would need
+    @Query(RESPONSE_SELECT + "WHERE p.id = :patientId AND a.date >= :date ORDER BY a.date, a.id")
+    List<AppointmentResponse> findResponsesByPatientId(@Param("patientId") Long patientId,
+            @Param("date") LocalDate date, Pageable pageable);
+
+    @Query(RESPONSE_SELECT + "WHERE d.id = :doctorId AND a.date >= :date ORDER BY a.date, a.id")
+    List<AppointmentResponse> findResponsesByDoctorId(@Param("doctorId") Long doctorId,
+            @Param("date") LocalDate date, Pageable pageable);
+
+    // Keyset variants: the row-value comparison seeks directly past the last (date, id) already returned,
+    // so the cost of a slice does not grow with its depth the way OFFSET does.
+    @Query(RESPONSE_SELECT + """
+            WHERE p.id = :patientId AND a.date >= :date AND (a.date, a.id) > (:afterDate, :afterId)
+            ORDER BY a.date, a.id""")
+    List<AppointmentResponse> findResponsesByPatientIdAfter(@Param("patientId") Long patientId,
+            @Param("date") LocalDate date, @Param("afterDate") LocalDate afterDate, @Param("afterId") Long afterId,
+            Limit limit);
 
-    Page<Appointment> findByDoctorIdAndDateGreaterThanEqual(Long doctorId, LocalDate date, Pageable pageable);
+    @Query(RESPONSE_SELECT + """
+            WHERE d.id = :doctorId AND a.date >= :date AND (a.date, a.id) > (:afterDate, :afterId)
+            ORDER BY a.date, a.id""")
+    List<AppointmentResponse> findResponsesByDoctorIdAfter(@Param("doctorId") Long doctorId,
+            @Param("date") LocalDate date, @Param("afterDate") LocalDate afterDate, @Param("afterId") Long afterId,
+            Limit limit);
 }
@@ -0,0 +1,49 @@
+package org.example.backend.repository;
+
+import org.example.backend.model.DoctorDaySlot;
+import org.example.backend.model.DoctorDaySlotId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DoctorDaySlotRepository extends JpaRepository<DoctorDaySlot, DoctorDaySlotId> {
+
+    // counters of one doctor between two dates (a date without a row has nothing booked)
+    List<DoctorDaySlot> findByIdDoctorIdAndIdDateBetween(Long doctorId, LocalDate from, LocalDate to);
+
+    // takes one slot only while the doctor-day is below capacity, returns 0 when it is full or has no row yet
+    @Modifying
+    @Query("UPDATE DoctorDaySlot s SET s.booked = s.booked + 1 " +
+            "WHERE s.id.doctorId = :doctorId AND s.id.date = :date AND s.booked < :capacity")
+    int reserve(@Param("doctorId") Long doctorId, @Param("date") LocalDate date, @Param("capacity") int capacity);
+
+    @Modifying
+    @Query("UPDATE DoctorDaySlot s SET s.booked = s.booked - 1 " +
+            "WHERE s.id.doctorId = :doctorId AND s.id.date = :date AND s.booked > 0")
+    int release(@Param("doctorId") Long doctorId, @Param("date") LocalDate date);
+
+    // gives back the upcoming slots of a patient whose appointments are about to be deleted with the account
+    @Modifying
+    @Query(value = "UPDATE doctor_day_slots s SET booked = s.booked - c.appointments " +
+            "FROM (SELECT a.doctor_id, a.date, COUNT(*) AS appointments FROM appointments a " +
+            "WHERE a.patient_id = :patientId AND a.date >= CURRENT_DATE GROUP BY a.doctor_id, a.date) c " +
+            "WHERE s.doctor_id = c.doctor_id AND s.date = c.date", nativeQuery = true)
+    int releaseAllOfPatient(@Param("patientId") Long patientId);
+
+    @Modifying
+    @Query("DELETE FROM DoctorDaySlot s WHERE s.id.doctorId = :doctorId")
+    int deleteAllOfDoctor(@Param("doctorId") Long doctorId);
+
+    // creates the counter of a doctor-day on first use, starting from the appointments already booked for it
+    @Modifying
+    @Query(value = "INSERT INTO doctor_day_slots (doctor_id, date, booked) " +
+            "SELECT :doctorId, :date, COUNT(*) FROM appointments a WHERE a.doctor_id = :doctorId AND a.date = :date " +
+            "ON CONFLICT (doctor_id, date) DO NOTHING", nativeQuery = true)
+    void createIfAbsent(@Param("doctorId") Long doctorId, @Param("date") LocalDate date);
+}
@@ -0,0 +1,14 @@
+package org.example.backend.repository;
+
+// Row of the DoctorRepository typeahead queries
+public interface DoctorNameMatch {
+    Long getId();
+
+    String getFullName();
+
+    String getStreet();
+
+    String getCity();
+
+    String getDoctorSpeciality();
+}
@@ -3,18 +3,123 @@ package org.example.backend.repository;
 import org.example.backend.model.City;
 import org.example.backend.model.Doctor;
 import org.example.backend.model.DoctorSpeciality;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
 
 @Repository
 public interface DoctorRepository extends JpaRepository<Doctor, Long> {
-    Page<Doctor> findByCityAndDoctorSpeciality
-            (City city, DoctorSpeciality doctorSpeciality, Pageable pageable);
+    // A null city or speciality matches every value, a dayBit of 0 every doctor; otherwise the doctor's
+    // availability mask must contain the day's bit. The fee must lie in [minFee, maxFee).
+    String SEARCH_SELECT = """
+            SELECT d FROM Doctor d
+            WHERE (:city IS NULL OR d.city = :city)
+              AND (:speciality IS NULL OR d.doctorSpeciality = :speciality)
+              AND (:dayBit = 0 OR bitand(d.availableDaysMask, cast(:dayBit AS Integer)) <> 0)
+              AND d.consultationFee >= :minFee AND d.consultationFee < :maxFee
+            """;
+    // Names are compared byte by byte (the "C" collation, code point order in UTF-8) rather than by the database's
+    // linguistic collation, so that the order does not depend on the server locale and DoctorDirectory can sort the
+    // same way in Java. Unlike ucs_basic, "C" exists whatever the database encoding.
+    String SEARCH_ORDER = " ORDER BY d.doctorSpeciality, collate(d.fullName as `C`), d.id";
+    String TYPEAHEAD_ENTRY_SELECT = """
+            SELECT d.id AS id, u.full_name AS fullName, d.street AS street,
+                   d.city AS city, d.doctor_speciality AS doctorSpeciality
+            FROM doctors d JOIN users u ON u.id = d.id
+            """;
+
+    // Slice instead of Page: the search only returns the content, so the COUNT query is never needed.
+    // The order is part of the query; the pageable only carries the offset and size.
+    @Query(SEARCH_SELECT + SEARCH_ORDER)
+    Slice<Doctor> search(@Param("city") City city, @Param("speciality") DoctorSpeciality speciality,
+            @Param("dayBit") int dayBit, @Param("minFee") double minFee, @Param("maxFee") double maxFee,
+            Pageable pageable);
+
+    // Keyset search ordered by (doctorSpeciality, fullName, id)
+
+    @Query(SEARCH_SELECT + SEARCH_ORDER)
+    List<Doctor> searchFirst(@Param("city") City city, @Param("speciality") DoctorSpeciality speciality,
+            @Param("dayBit") int dayBit, @Param("minFee") double minFee, @Param("maxFee") double maxFee,
+            Limit limit);
+
+    // Expanded form of (doctorSpeciality, fullName, id) > (:afterSpeciality, :afterName, :afterId):
+    // inside a tuple comparison Hibernate binds the enum parameter by ordinal instead of by name.
+    @Query(SEARCH_SELECT + """
+              AND (d.doctorSpeciality > :afterSpeciality
+                   OR (d.doctorSpeciality = :afterSpeciality AND collate(d.fullName as `C`) > :afterName)
+                   OR (d.doctorSpeciality = :afterSpeciality AND d.fullName = :afterName AND d.id > :afterId))
+            """ + SEARCH_ORDER)
+    List<Doctor> searchAfter(@Param("city") City city, @Param("speciality") DoctorSpeciality speciality,
+            @Param("dayBit") int dayBit, @Param("minFee") double minFee, @Param("maxFee") double maxFee,
+            @Param("afterSpeciality") DoctorSpeciality afterSpeciality, @Param("afterName") String afterName,
+            @Param("afterId") Long afterId, Limit limit);
+
+    // For every matching doctor, the first day between from and to that is a working day (also restricted to
+    // dayMask) and whose doctor-day counter is below capacity; a day without a counter has nothing booked.
+    // The lateral subquery stops at each doctor's first free day and reads only counters, never appointments,
+    // so the cost depends on the number of doctors and days, not on how many appointments they have.
+    @Query(value = """
+            SELECT d.id AS doctorId, f.day AS date, f.remaining AS remaining
+            FROM doctors d
+            CROSS JOIN LATERAL (
+                SELECT CAST(g.ts AS date) AS day, d.patient_number - COALESCE(s.booked, 0) AS remaining
+                FROM generate_series(CAST(:from AS date), CAST(:to AS date), INTERVAL '1 day') AS g(ts)
+                LEFT JOIN doctor_day_slots s ON s.doctor_id = d.id AND s.date = CAST(g.ts AS date)
+                WHERE (d.available_days_mask & :dayMask & (1 << (CAST(EXTRACT(ISODOW FROM g.ts) AS integer) - 1))) <> 0
+                  AND COALESCE(s.booked, 0) < d.patient_number
+                ORDER BY g.ts
+                LIMIT 1) f
+            WHERE (CAST(:city AS varchar) IS NULL OR d.city = :city)
+              AND (CAST(:speciality AS varchar) IS NULL OR d.doctor_speciality = :speciality)
+              AND d.consultation_fee >= :minFee AND d.consultation_fee < :maxFee
+            ORDER BY f.day, d.id
+            LIMIT :limit""", nativeQuery = true)
+    List<FirstFreeDay> findFirstFreeDays(@Param("city") String city, @Param("speciality") String speciality,
+            @Param("dayMask") int dayMask, @Param("minFee") double minFee, @Param("maxFee") double maxFee,
+            @Param("from") LocalDate from, @Param("to") LocalDate to, @Param("limit") int limit);
+
+    // Typeahead over doctor names and streets. Each branch is answered by its own trigram index: prefix is
+    // the escaped input followed by '%', and <% is a fuzzy match of the input against any part of the text. A name
+    // that starts with the input ranks above a street that does, and both rank above fuzzy matches, which are
+    // ordered by word_similarity.
+    @Query(value = """
+            SELECT d.id AS id, u.full_name AS fullName, d.street AS street,
+                   d.city AS city, d.doctor_speciality AS doctorSpeciality
+            FROM (
+                SELECT id, max(score) AS score
+                FROM (
+                    SELECT u.id,
+                           CASE WHEN u.full_name ILIKE :prefix THEN 2 ELSE 0 END
+                               + word_similarity(:query, u.full_name) AS score
+                    FROM users u
+                    WHERE u.type = 'DOCTOR' AND (u.full_name ILIKE :prefix OR :query <% u.full_name)
+                    UNION ALL
+                    SELECT d.id,
+                           CASE WHEN d.street ILIKE :prefix THEN 1 ELSE 0 END
+                               + word_similarity(:query, d.street) AS score
+                    FROM doctors d
+                    WHERE d.street ILIKE :prefix OR :query <% d.street) matches
+                GROUP BY id) m
+            JOIN doctors d ON d.id = m.id
+            JOIN users u ON u.id = d.id
+            ORDER BY m.score DESC, u.full_name, d.id
+            LIMIT :limit""", nativeQuery = true)
+    List<DoctorNameMatch> findTypeaheadMatches(@Param("query") String query, @Param("prefix") String prefix,
+            @Param("limit") int limit);
 
-    Page<Doctor> findByDoctorSpeciality(DoctorSpeciality doctorSpeciality, Pageable pageable);
+    // DoctorTypeaheadIndex entries
+    @Query(value = TYPEAHEAD_ENTRY_SELECT, nativeQuery = true)
+    List<DoctorNameMatch> findAllTypeaheadEntries();
 
-    Page<Doctor> findByCity(City city, Pageable pageable);
+    @Query(value = TYPEAHEAD_ENTRY_SELECT + "WHERE d.id = :id", nativeQuery = true)
+    Optional<DoctorNameMatch> findTypeaheadEntry(@Param("id") Long id);
 }
@@ -0,0 +1,12 @@
+package org.example.backend.repository;
+
+import java.time.LocalDate;
+
+// Row of DoctorRepository.findFirstFreeDays
+public interface FirstFreeDay {
+    Long getDoctorId();
+
+    LocalDate getDate();
+
+    Integer getRemaining();
+}
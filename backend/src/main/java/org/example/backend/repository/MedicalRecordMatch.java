@@ -0,0 +1,24 @@
+package org.example.backend.repository;
+
+import java.time.LocalDate;
+
+// Row of MedicalRecordRepository.searchOfPatient and searchSharedWithDoctor
+public interface MedicalRecordMatch {
+    Long getId();
+
+    String getContent();
+
+    LocalDate getDate();
+
+    Long getDoctorId();
+
+    String getDoctorName();
+
+    Long getPatientId();
+
+    String getPatientName();
+
+    Float getRank();
+
+    String getHeadline();
+}
@@ -1,15 +1,138 @@
 package org.example.backend.repository;
 
+import jakarta.persistence.QueryHint;
+import org.example.backend.dto.MedicalRecordResponse;
 import org.example.backend.model.MedicalRecord;
-import org.example.backend.model.Patient;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface MedicalRecordRepository extends JpaRepository<MedicalRecord, Long> {
-    List<MedicalRecord> findByPatient(Patient patient);
+    // response rows are built in SQL, joining the author and the patient instead of loading them lazily
+    String RESPONSE_SELECT = """
+            SELECT new org.example.backend.dto.MedicalRecordResponse(
+                mr.id, mr.content, mr.date, d.id, d.fullName, p.id, p.fullName)
+            FROM MedicalRecord mr JOIN mr.doctor d JOIN mr.patient p
+            """;
+    // timelines are newest first; id breaks ties between records of the same day
+    String TIMELINE_ORDER = " ORDER BY mr.date DESC, mr.id DESC";
+    String STREAM_FETCH_SIZE = "500";
 
-    @Query("SELECT mr FROM MedicalRecord mr JOIN mr.sharedWithDoctors d WHERE d.id = :doctorId")
-    List<MedicalRecord> findMedicalRecordsSharedWithDoctor(@Param("doctorId") Long doctorId);
+    // Full-text search: the matches inside the caller's scope are ranked and cut to one keyset slice on
+    // (rank, id), and only the rows of that slice are joined to their authors and patients and get a headline
+    // (ts_headline re-parses the content, so it is the expensive part). The tsquery is written out in place rather
+    // than computed once in a CTE, so the planner sees how selective the search terms are and can choose between
+    // the GIN index on content_tsv and the scope's own index.
+    String SEARCH_RANKED = """
+            WITH ranked AS (
+                SELECT mr.id, ts_rank(mr.content_tsv, websearch_to_tsquery('english', :query)) AS rank
+                FROM medical_records mr
+                WHERE mr.content_tsv @@ websearch_to_tsquery('english', :query)
+            """;
+    String SEARCH_PAGE = """
+            ),
+            page AS (
+                SELECT id, rank FROM ranked
+                WHERE (rank, id) < (CAST(:beforeRank AS real), :beforeId)
+                ORDER BY rank DESC, id DESC
+                LIMIT :limit)
+            SELECT mr.id AS id, mr.content AS content, mr.date AS date,
+                   mr.doctor_id AS doctorId, du.full_name AS doctorName,
+                   mr.patient_id AS patientId, pu.full_name AS patientName,
+                   page.rank AS rank,
+                   ts_headline('english', mr.content, websearch_to_tsquery('english', :query),
+                       'StartSel=<mark>, StopSel=</mark>, MaxFragments=2, MaxWords=20, MinWords=5') AS headline
+            FROM page
+            JOIN medical_records mr ON mr.id = page.id
+            JOIN users du ON du.id = mr.doctor_id
+            JOIN users pu ON pu.id = mr.patient_id
+            ORDER BY page.rank DESC, page.id DESC""";
+
+    // Sharing writes doctor_medical_records directly: every missing (doctor, record) pair is inserted by one
+    // statement, pairs that already exist are skipped by uk_doctor_medical_records. Returns the rows inserted.
+    @Modifying
+    @Query(value = """
+            INSERT INTO doctor_medical_records (doctor_id, medical_record_id)
+            SELECT :doctorId, mr.id FROM medical_records mr WHERE mr.patient_id = :patientId
+            ON CONFLICT (doctor_id, medical_record_id) DO NOTHING""", nativeQuery = true)
+    int shareAllOfPatient(@Param("patientId") Long patientId, @Param("doctorId") Long doctorId);
+
+    // Only the record's own patient can share it: a record of another patient selects no row and inserts nothing.
+    @Modifying
+    @Query(value = """
+            INSERT INTO doctor_medical_records (doctor_id, medical_record_id)
+            SELECT :doctorId, mr.id FROM medical_records mr WHERE mr.id = :recordId AND mr.patient_id = :patientId
+            ON CONFLICT (doctor_id, medical_record_id) DO NOTHING""", nativeQuery = true)
+    int share(@Param("recordId") Long recordId, @Param("patientId") Long patientId, @Param("doctorId") Long doctorId);
+
+    boolean existsByIdAndPatientId(Long id, Long patientId);
+
+    @Query(RESPONSE_SELECT + "WHERE mr.id = :id")
+    Optional<MedicalRecordResponse> findResponseById(@Param("id") Long id);
+
+    @Query(RESPONSE_SELECT + "WHERE p.id = :patientId")
+    List<MedicalRecordResponse> findResponsesByPatientId(@Param("patientId") Long patientId);
+
+    @Query(RESPONSE_SELECT + "WHERE p.id = :patientId AND mr.sharedWithDoctors IS NOT EMPTY")
+    List<MedicalRecordResponse> findSharedResponsesByPatientId(@Param("patientId") Long patientId);
+
+    @Query(RESPONSE_SELECT + "JOIN mr.sharedWithDoctors s WHERE s.id = :doctorId")
+    List<MedicalRecordResponse> findResponsesSharedWithDoctor(@Param("doctorId") Long doctorId);
+
+    // Keyset timelines: the first slice has no cursor, every following one seeks below the (date, id) of the
+    // last record it returned.
+    @Query(RESPONSE_SELECT + "WHERE p.id = :patientId" + TIMELINE_ORDER)
+    List<MedicalRecordResponse> findTimelineByPatientId(@Param("patientId") Long patientId, Limit limit);
+
+    @Query(RESPONSE_SELECT + "WHERE p.id = :patientId AND (mr.date, mr.id) < (:beforeDate, :beforeId)"
+            + TIMELINE_ORDER)
+    List<MedicalRecordResponse> findTimelineByPatientIdBefore(@Param("patientId") Long patientId,
+            @Param("beforeDate") LocalDate beforeDate, @Param("beforeId") Long beforeId, Limit limit);
+
+    @Query(RESPONSE_SELECT + "JOIN mr.sharedWithDoctors s WHERE s.id = :doctorId" + TIMELINE_ORDER)
+    List<MedicalRecordResponse> findTimelineSharedWithDoctor(@Param("doctorId") Long doctorId, Limit limit);
+
+    @Query(RESPONSE_SELECT + """
+            JOIN mr.sharedWithDoctors s
+            WHERE s.id = :doctorId AND (mr.date, mr.id) < (:beforeDate, :beforeId)""" + TIMELINE_ORDER)
+    List<MedicalRecordResponse> findTimelineSharedWithDoctorBefore(@Param("doctorId") Long doctorId,
+            @Param("beforeDate") LocalDate beforeDate, @Param("beforeId") Long beforeId, Limit limit);
+
+    // Whole timelines read through a database cursor, STREAM_FETCH_SIZE rows per round trip. The rows are DTOs,
+    // so nothing accumulates in the persistence context. Must be consumed and closed inside a transaction.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query(RESPONSE_SELECT + "WHERE p.id = :patientId" + TIMELINE_ORDER)
+    Stream<MedicalRecordResponse> streamTimelineByPatientId(@Param("patientId") Long patientId);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query(RESPONSE_SELECT + "JOIN mr.sharedWithDoctors s WHERE s.id = :doctorId" + TIMELINE_ORDER)
+    Stream<MedicalRecordResponse> streamTimelineSharedWithDoctor(@Param("doctorId") Long doctorId);
+
+    // The access check is part of the statement, so records outside the scope are never ranked or returned.
+    @Query(value = SEARCH_RANKED + "      AND mr.patient_id = :patientId" + SEARCH_PAGE, nativeQuery = true)
+    List<MedicalRecordMatch> searchOfPatient(@Param("patientId") Long patientId, @Param("query") String query,
+            @Param("beforeRank") float beforeRank, @Param("beforeId") Long beforeId, @Param("limit") int limit);
+
+    // Driven by the doctor's shares instead: their record ids are read from uk_doctor_medical_records (doctor_id,
+    // medical_record_id) and the records fetched by id, so the tsquery is only checked on those. Left to the planner,
+    // phrase and common-word queries matched the whole table through the GIN index and rechecked every hit before
+    // the scope removed almost all of them. The planner has no choice to make here, so the tsquery is parsed once
+    // rather than for every shared record.
+    @Query(value = """
+            WITH ranked AS (
+                SELECT mr.id, ts_rank(mr.content_tsv, q.query) AS rank
+                FROM websearch_to_tsquery('english', :query) q(query)
+                JOIN medical_records mr ON mr.content_tsv @@ q.query
+                WHERE mr.id = ANY (ARRAY(SELECT s.medical_record_id FROM doctor_medical_records s
+                                         WHERE s.doctor_id = :doctorId))""" + SEARCH_PAGE, nativeQuery = true)
+    List<MedicalRecordMatch> searchSharedWithDoctor(@Param("doctorId") Long doctorId, @Param("query") String query,
+            @Param("beforeRank") float beforeRank, @Param("beforeId") Long beforeId, @Param("limit") int limit);
 }
@@ -1,16 +1,20 @@
 package org.example.backend.service;
 
+import io.micrometer.core.annotation.Timed;
 import jakarta.persistence.EntityNotFoundException;
 import org.example.backend.dto.AppointmentResponse;
 import org.example.backend.dto.BookAppointmentRequest;
+import org.example.backend.dto.CursorPage;
+import org.example.backend.dto.DayAvailability;
 import org.example.backend.dto.ModifyAppointmentRequest;
 import org.example.backend.exception.ErrorMessage;
 import org.example.backend.model.*;
 import org.example.backend.repository.AppointmentRepository;
+import org.example.backend.repository.DoctorDaySlotRepository;
 import org.example.backend.repository.DoctorRepository;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -19,29 +23,69 @@ import lombok.RequiredArgsConstructor;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@Timed(value = "service.method", histogram = true)
 public class AppointmentService {
     private final AppointmentRepository appointmentRepository;
     private final DoctorRepository doctorRepository;
+    private final DoctorDaySlotRepository doctorDaySlotRepository;
 
     public List<AppointmentResponse> getAppointments(User authenticatedUser, int page, int size) {
-        List<Appointment> appointments = new ArrayList<>();
-        Pageable pageable = PageRequest.of(page, size, Sort.by("date").ascending());
+        // the queries carry their own ORDER BY (date, id), so the page request is unsorted
+        Pageable pageable = PageRequest.of(page, size);
         if (authenticatedUser.getRole() == Role.PATIENT) {
-            Patient patient = (Patient) authenticatedUser;
-            appointments = appointmentRepository.findByPatientIdAndDateGreaterThanEqual(patient.getId(),
-                    LocalDate.now(), pageable).getContent();
+            return appointmentRepository.findResponsesByPatientId(authenticatedUser.getId(), LocalDate.now(),
+                    pageable);
         } else if (authenticatedUser.getRole() == Role.DOCTOR) {
-            Doctor doctor = (Doctor) authenticatedUser;
-            appointments = appointmentRepository.findByDoctorIdAndDateGreaterThanEqual(doctor.getId(), LocalDate.now(),
-                    pageable).getContent();
+            return appointmentRepository.findResponsesByDoctorId(authenticatedUser.getId(), LocalDate.now(),
+                    pageable);
         }
-        return appointments.stream()
-                .map(appointment -> buildAppointmentResponse(appointment, appointment.getDoctor(),
-                        appointment.getPatient()))
-                .toList();
+        return List.of();
+    }
+
+    // Keyset pagination on (date, id): each slice seeks past the cursor instead of skipping rows with OFFSET.
+    public CursorPage<AppointmentResponse> scrollAppointments(User authenticatedUser, String cursor, int size) {
+        Limit limit = CursorPage.limit(size);
+        LocalDate today = LocalDate.now();
+        // ids are positive, so (today, 0) sorts before every appointment from today on
+        AppointmentKey after = cursor == null ? new AppointmentKey(today, 0L)
+                : CursorPage.decode(cursor, 2, keys -> new AppointmentKey(LocalDate.parse(keys[0]),
+                        Long.parseLong(keys[1])));
+        List<AppointmentResponse> rows = List.of();
+        if (authenticatedUser.getRole() == Role.PATIENT) {
+            rows = appointmentRepository.findResponsesByPatientIdAfter(authenticatedUser.getId(), today,
+                    after.date(), after.id(), limit);
+        } else if (authenticatedUser.getRole() == Role.DOCTOR) {
+            rows = appointmentRepository.findResponsesByDoctorIdAfter(authenticatedUser.getId(), today,
+                    after.date(), after.id(), limit);
+        }
+        return CursorPage.of(rows, size, last -> CursorPage.encode(last.getDate(), last.getId()));
+    }
+
+    // Remaining capacity of each working day of the doctor between from and to (past days are skipped). The
+    // doctor_day_slots counters are kept up to date by every booking, move and cancellation, so the whole
+    // calendar costs one range read instead of one appointment count per day.
+    @Transactional(readOnly = true)
+    public List<DayAvailability> getAvailability(Long doctorId, LocalDate from, LocalDate to) {
+        DateWindow window = DateWindow.of(from, to);
+        Doctor doctor = doctorRepository.findById(doctorId)
+                .orElseThrow(() -> new EntityNotFoundException(ErrorMessage.USER_NOT_FOUND.getMessage()));
+        Map<LocalDate, Integer> booked = doctorDaySlotRepository
+                .findByIdDoctorIdAndIdDateBetween(doctorId, window.start(), window.end()).stream()
+                .collect(Collectors.toMap(slot -> slot.getId().getDate(), DoctorDaySlot::getBooked));
+        int capacity = doctor.getPatientNumber();
+        List<DayAvailability> calendar = new ArrayList<>();
+        for (LocalDate date = window.start(); !date.isAfter(window.end()); date = date.plusDays(1)) {
+            if (doctor.isAvailableOn(Day.of(date.getDayOfWeek()))) {
+                int remaining = Math.max(0, capacity - booked.getOrDefault(date, 0));
+                calendar.add(new DayAvailability(date, capacity, remaining));
+            }
+        }
+        return calendar;
     }
 
     @Transactional
@@ -55,13 +99,13 @@ public class AppointmentService {
             throw new EntityNotFoundException(ErrorMessage.APPOINTMENT_EXISTS.getMessage());
         }
         verifyDoctorAvailable(doctor, request.getDate());
-        verifyEnoughPatientNumber(request.getDoctorId(), request.getDate(), doctor.getPatientNumber());
+        reserveSlot(request.getDoctorId(), request.getDate(), doctor.getPatientNumber());
         Appointment appointment = new Appointment();
         appointment.setDoctor(doctor);
         appointment.setPatient(patient);
         appointment.setDate(request.getDate());
         Appointment savedAppointment = appointmentRepository.save(appointment);
-        return buildAppointmentResponse(savedAppointment, doctor, patient);
+        return AppointmentResponse.of(savedAppointment, doctor, patient);
     }
 
     @Transactional
@@ -85,13 +129,12 @@ public class AppointmentService {
                     });
 
             verifyDoctorAvailable(appointment.getDoctor(), request.getDate());
-            verifyEnoughPatientNumber(appointment.getDoctor().getId(), request.getDate(),
-                    appointment.getDoctor().getPatientNumber());
+            moveSlot(appointment.getDoctor(), appointment.getDate(), request.getDate());
         }
 
         appointment.setDate(request.getDate());
         Appointment savedAppointment = appointmentRepository.save(appointment);
-        return buildAppointmentResponse(savedAppointment, savedAppointment.getDoctor(), savedAppointment.getPatient());
+        return AppointmentResponse.of(savedAppointment, savedAppointment.getDoctor(), savedAppointment.getPatient());
     }
 
     @Transactional
@@ -100,6 +143,7 @@ public class AppointmentService {
                 .orElseThrow(() -> new EntityNotFoundException(ErrorMessage.APPOINTMENT_NOT_FOUND.getMessage()));
         verifyAppointmentOwnership(appointment, authenticatedUser);
         verifyAppointmentNotPast(appointment.getDate());
+        doctorDaySlotRepository.release(appointment.getDoctor().getId(), appointment.getDate());
         appointmentRepository.delete(appointment);
         return "Appointment with ID " + appointmentId + " has been cancelled successfully.";
     }
@@ -117,16 +161,31 @@ public class AppointmentService {
     }
 
     private void verifyDoctorAvailable(Doctor doctor, LocalDate date) {
-        Day day = Day.valueOf(date.getDayOfWeek().name());
-        if (!doctor.getAvailableDays().contains(day)) {
+        if (!doctor.isAvailableOn(Day.of(date.getDayOfWeek()))) {
             throw new EntityNotFoundException(ErrorMessage.DOCTOR_NOT_AVAILABLE.getMessage());
         }
     }
 
-    private void verifyEnoughPatientNumber(Long doctorId, LocalDate date, Integer patientNumber) {
-        Integer count = appointmentRepository.countByDoctorIdAndDate(doctorId, date);
-        if (count + 1 > patientNumber) {
-            throw new EntityNotFoundException(ErrorMessage.DOCTOR_CAPACITY_FULL.getMessage());
+    // Atomically takes one slot of the doctor-day. The conditional UPDATE locks only that doctor-day row until
+    // the transaction ends, so concurrent bookings cannot overbook, and a failed booking rolls the slot back.
+    private void reserveSlot(Long doctorId, LocalDate date, Integer patientNumber) {
+        if (doctorDaySlotRepository.reserve(doctorId, date, patientNumber) == 0) {
+            // either the day is full or its counter does not exist yet
+            doctorDaySlotRepository.createIfAbsent(doctorId, date);
+            if (doctorDaySlotRepository.reserve(doctorId, date, patientNumber) == 0) {
+                throw new EntityNotFoundException(ErrorMessage.DOCTOR_CAPACITY_FULL.getMessage());
+            }
+        }
+    }
+
+    private void moveSlot(Doctor doctor, LocalDate fromDate, LocalDate toDate) {
+        // rows are always locked in date order, so two appointments swapping dates cannot deadlock
+        if (toDate.isBefore(fromDate)) {
+            reserveSlot(doctor.getId(), toDate, doctor.getPatientNumber());
+            doctorDaySlotRepository.release(doctor.getId(), fromDate);
+        } else {
+            doctorDaySlotRepository.release(doctor.getId(), fromDate);
+            reserveSlot(doctor.getId(), toDate, doctor.getPatientNumber());
         }
     }
 
@@ -136,23 +195,7 @@ public class AppointmentService {
         }
     }
 
-    private AppointmentResponse buildAppointmentResponse(Appointment appointment, Doctor doctor, Patient patient) {
-        return AppointmentResponse.builder()
-                .id(appointment.getId())
-                .date(appointment.getDate())
-                .patientId(patient.getId())
-                .patientName(patient.getFullName())
-                .patientEmail(patient.getEmail())
-                .doctorId(doctor.getId())
-                .doctorName(doctor.getFullName())
-                .doctorEmail(doctor.getEmail())
-                .doctorCity(doctor.getCity().name())
-                .doctorStreet(doctor.getStreet())
-                .doctorSpecialization(doctor.getDoctorSpeciality().name())
-                .doctorStartTime(doctor.getStartTime())
-                .doctorEndTime(doctor.getEndTime())
-                .doctorConsultationFee(doctor.getConsultationFee())
-                .build();
+    private record AppointmentKey(LocalDate date, Long id) {
     }
 
 }
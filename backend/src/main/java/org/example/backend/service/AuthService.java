@@ -1,19 +1,30 @@
 package org.example.backend.service;
 
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.persistence.EntityExistsException;
 import jakarta.persistence.EntityNotFoundException;
-import lombok.RequiredArgsConstructor;
+import org.example.backend.config.CacheNames;
 import org.example.backend.dto.*;
+import org.example.backend.event.DoctorChangedEvent;
+import org.example.backend.event.UserChangedEvent;
 import org.example.backend.exception.ErrorMessage;
 import org.example.backend.jwt.JwtService;
+import org.example.backend.mapper.UserMapper;
+import org.example.backend.model.Doctor;
 import org.example.backend.model.Patient;
+import org.example.backend.model.Role;
 import org.example.backend.model.User;
+import org.example.backend.repository.DoctorDaySlotRepository;
 import org.example.backend.repository.UserRepository;
-import org.modelmapper.ModelMapper;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import io.jsonwebtoken.JwtException;
 
@@ -24,33 +35,70 @@ import java.util.Map;
 import java.util.Optional;
 
 @Service
-@RequiredArgsConstructor
+@Timed(value = "service.method", histogram = true)
 public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final UserRepository userRepository;
+    private final DoctorDaySlotRepository doctorDaySlotRepository;
     private final AuthenticationManager authenticationManager;
     private final JwtService jwtService;
-    private final ModelMapper modelMapper;
+    private final UserMapper userMapper;
+    private final MeterRegistry meterRegistry;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Timer loginSuccessTimer;
+    private final Timer loginFailureTimer;
+
+    public AuthService(PasswordEncoder passwordEncoder, UserRepository userRepository,
+                       DoctorDaySlotRepository doctorDaySlotRepository, AuthenticationManager authenticationManager,
+                       JwtService jwtService, UserMapper userMapper, MeterRegistry meterRegistry, ApplicationEventPublisher eventPublisher) {
+        this.passwordEncoder = passwordEncoder;
+        this.userRepository = userRepository;
+        this.doctorDaySlotRepository = doctorDaySlotRepository;
+        this.authenticationManager = authenticationManager;
+        this.jwtService = jwtService;
+        this.userMapper = userMapper;
+        this.meterRegistry = meterRegistry;
+        this.eventPublisher = eventPublisher;
+        this.loginSuccessTimer = loginTimer(meterRegistry, "success");
+        this.loginFailureTimer = loginTimer(meterRegistry, "failure");
+    }
 
     public Map<String, Object> login(LoginRequest loginRequest) {
-        // runs UserDetailsService bean to find user from DB and compares passwords
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(loginRequest.getEmail(), loginRequest.getPassword()));
-        if (!authentication.isAuthenticated()) {
-            throw new JwtException(ErrorMessage.JWT_ERROR.getMessage());
+        // latency of the whole login (dominated by the password check), published as p50/p95/p99
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Timer timer = loginFailureTimer;
+        try {
+            // runs UserDetailsService bean to find user from DB and compares passwords
+            Authentication authentication = authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(loginRequest.getEmail(), loginRequest.getPassword()));
+            if (!authentication.isAuthenticated()) {
+                throw new JwtException(ErrorMessage.JWT_ERROR.getMessage());
+            }
+            User user = userRepository.findByEmailIgnoreCase(loginRequest.getEmail()).orElseThrow(
+                    () -> new EntityNotFoundException(ErrorMessage.USER_NOT_FOUND.getMessage()));
+            String jwtToken = jwtService.generateToken(user.getId(), user.getEmail(), user.getRole());
+            Map<String, Object> map = new HashMap<>();
+            map.put("token", jwtToken);
+            map.put("role", user.getRole().name());
+            timer = loginSuccessTimer;
+            return map;
+        } finally {
+            sample.stop(timer);
         }
-        User user = userRepository.findByEmailIgnoreCase(loginRequest.getEmail()).orElseThrow(
-                () -> new EntityNotFoundException(ErrorMessage.USER_NOT_FOUND.getMessage()));
-        String jwtToken = jwtService.generateToken(user.getId(), user.getEmail(), user.getRole());
-        Map<String, Object> map = new HashMap<>();
-        map.put("token", jwtToken);
-        map.put("role", user.getRole().name());
-        return map;
+    }
+
+    private static Timer loginTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("auth.login")
+                .description("Login latency")
+                .tag("outcome", outcome)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
     }
 
     public <T extends User> Map<String, Object> register(UserRegisterRequest registrationRequest,
             Class<T> targetClass) {
-        T user = modelMapper.map(registrationRequest, targetClass);
+        T user = userMapper.toUser(registrationRequest, targetClass);
         Optional<User> userExisted = userRepository.findByEmailIgnoreCaseOrPhoneNumber(user.getEmail(),
                 user.getPhoneNumber());
         if (userExisted.isPresent())
@@ -59,16 +107,29 @@ public class AuthService {
         T createdUser = userRepository.save(user);
         String jwtToken = jwtService.generateToken(createdUser.getId(), createdUser.getEmail(), createdUser.getRole());
         Map<String, Object> map = new HashMap<>();
-        if (createdUser instanceof Patient)
-            map.put("user", modelMapper.map(createdUser, UserMainView.class));
-        else
-            map.put("user", modelMapper.map(createdUser, DoctorMainView.class));
+        if (createdUser instanceof Patient) {
+            map.put("user", userMapper.toUserMainView(createdUser));
+        } else {
+            map.put("user", userMapper.toDoctorMainView((Doctor) createdUser));
+            eventPublisher.publishEvent(new DoctorChangedEvent(createdUser.getId()));
+        }
         map.put("token", jwtToken);
         return map;
     }
 
+    @CacheEvict(cacheNames = CacheNames.DOCTORS, key = "#authenticatedUser.id",
+            condition = "#authenticatedUser.role.name() == 'DOCTOR'")
+    @Transactional
     public void deleteAccount(User authenticatedUser) {
+        // the account's appointments are removed with it, so the doctor-day counters must follow
+        if (authenticatedUser.getRole() == Role.PATIENT) {
+            doctorDaySlotRepository.releaseAllOfPatient(authenticatedUser.getId());
+        } else if (authenticatedUser.getRole() == Role.DOCTOR) {
+            doctorDaySlotRepository.deleteAllOfDoctor(authenticatedUser.getId());
+            eventPublisher.publishEvent(new DoctorChangedEvent(authenticatedUser.getId()));
+        }
         userRepository.deleteById(authenticatedUser.getId());
+        eventPublisher.publishEvent(new UserChangedEvent(authenticatedUser.getId()));
     }
 
     public Map<String, Object> forgetPassword(ForgetPasswordRequest forgetPasswordRequest) {
@@ -76,6 +137,7 @@ public class AuthService {
                 () -> new EntityNotFoundException(ErrorMessage.USER_NOT_FOUND.getMessage()));
         foundedUser.setPassword(passwordEncoder.encode(forgetPasswordRequest.getNewPassword()));
         userRepository.save(foundedUser);
+        eventPublisher.publishEvent(new UserChangedEvent(foundedUser.getId()));
         Map<String, Object> map = new HashMap<>();
         map.put("message", "Password updated successfully");
         return map;
@@ -0,0 +1,22 @@
+package org.example.backend.service;
+
+import org.example.backend.exception.ErrorMessage;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+// Date range of the availability queries: starts no earlier than today, defaults to 30 days and is capped at
+// MAX_DAYS so that a single request cannot expand into an unbounded number of days
+record DateWindow(LocalDate start, LocalDate end) {
+    static final int MAX_DAYS = 92;
+
+    static DateWindow of(LocalDate from, LocalDate to) {
+        LocalDate today = LocalDate.now();
+        LocalDate start = from == null || from.isBefore(today) ? today : from;
+        LocalDate end = to == null ? start.plusDays(30) : to;
+        if (end.isBefore(start) || ChronoUnit.DAYS.between(start, end) >= MAX_DAYS) {
+            throw new IllegalArgumentException(ErrorMessage.INVALID_DATE_RANGE.getMessage());
+        }
+        return new DateWindow(start, end);
+    }
+}
@@ -0,0 +1,343 @@
+package org.example.backend.service;
+
+import org.example.backend.dto.DoctorFacets;
+import org.example.backend.dto.DoctorMainView;
+import org.example.backend.dto.DoctorSearchRequest;
+import org.example.backend.event.DoctorChangedEvent;
+import org.example.backend.event.DoctorsImportedEvent;
+import org.example.backend.mapper.UserMapper;
+import org.example.backend.model.City;
+import org.example.backend.model.Day;
+import org.example.backend.model.DoctorSpeciality;
+import org.example.backend.model.FeeRange;
+import org.example.backend.model.Role;
+import org.example.backend.repository.DoctorRepository;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.roaringbitmap.RoaringBitmapWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+
+// In-process copy of the doctor directory, answering the doctor search and its facet counts without the database.
+// Doctors are held in search order (speciality, full name, id), and every city, speciality, day and fee range has a
+// RoaringBitmap of the positions of its doctors: a search intersects at most four bitmaps, and a page starts at the
+// n-th position of the result.
+//
+// Searches read an immutable Snapshot. A change builds the next snapshot and publishes it with one volatile write,
+// so readers never lock and never see half of a change.
+//
+// Like DoctorTypeaheadIndex, it is built when the application is ready and after a DoctorsImportedEvent, updated
+// after every committed DoctorChangedEvent and rebuilt on a fixed delay to pick up changes made through other instances.
+@Component
+public class DoctorDirectory {
+    private static final Logger log = LoggerFactory.getLogger(DoctorDirectory.class);
+
+    // the order of the database search (DoctorRepository.SEARCH_ORDER); the speciality column holds the enum name,
+    // so it sorts by name, and names are compared by code point like the "C" collation
+    static final Comparator<DoctorMainView> SEARCH_ORDER = Comparator
+            .comparing((DoctorMainView doctor) -> doctor.getDoctorSpeciality().name())
+            .thenComparing(DoctorMainView::getFullName, DoctorDirectory::compareCodePoints)
+            .thenComparing(DoctorMainView::getId);
+    private static final City[] CITIES = Arrays.stream(City.values())
+            .filter(city -> city != City.ALL).toArray(City[]::new);
+    private static final DoctorSpeciality[] SPECIALITIES = Arrays.stream(DoctorSpeciality.values())
+            .filter(speciality -> speciality != DoctorSpeciality.ALL).toArray(DoctorSpeciality[]::new);
+
+    private final DoctorRepository doctorRepository;
+    private final UserMapper userMapper;
+    // writer side, guarded by this
+    private final Map<Long, DoctorMainView> doctorsById = new HashMap<>();
+    private final NavigableSet<DoctorMainView> ordered = new TreeSet<>(SEARCH_ORDER);
+    // ids of the doctors changed while a rebuild reads the database, guarded by this; null when no rebuild runs
+    private Set<Long> changedDuringRebuild;
+    private final Object rebuildLock = new Object();
+    private final ReloadSequence reloads = new ReloadSequence();
+    private volatile Snapshot snapshot;
+
+    public DoctorDirectory(DoctorRepository doctorRepository, UserMapper userMapper) {
+        this.doctorRepository = doctorRepository;
+        this.userMapper = userMapper;
+    }
+
+    public boolean isReady() {
+        return snapshot != null;
+    }
+
+    // the matching doctors from offset on, in search order
+    public List<DoctorMainView> search(Filter filter, long offset, int size) {
+        Snapshot current = snapshot;
+        RoaringBitmap matches = current.matching(filter.city(), filter.speciality(), filter.day(), filter.feeRange());
+        if (offset >= matches.getLongCardinality()) {
+            return List.of();
+        }
+        return current.read(matches, matches.select((int) offset), size);
+    }
+
+    // the matching doctors that come after (speciality, fullName, id) in search order
+    public List<DoctorMainView> searchAfter(Filter filter, DoctorSpeciality speciality, String fullName, Long id,
+                                            int size) {
+        Snapshot current = snapshot;
+        RoaringBitmap matches = current.matching(filter.city(), filter.speciality(), filter.day(), filter.feeRange());
+        DoctorMainView key = new DoctorMainView(id, Role.DOCTOR);
+        key.setDoctorSpeciality(speciality);
+        key.setFullName(fullName);
+        int found = Arrays.binarySearch(current.doctors(), key, SEARCH_ORDER);
+        return current.read(matches, found >= 0 ? found + 1 : -found - 1, size);
+    }
+
+    public DoctorFacets facets(Filter filter) {
+        Snapshot current = snapshot;
+        City city = filter.city();
+        DoctorSpeciality speciality = filter.speciality();
+        Day day = filter.day();
+        FeeRange feeRange = filter.feeRange();
+        return new DoctorFacets(
+                current.matching(city, speciality, day, feeRange).getCardinality(),
+                counts(CITIES, current.cities(), current.matching(null, speciality, day, feeRange)),
+                counts(SPECIALITIES, current.specialities(), current.matching(city, null, day, feeRange)),
+                counts(Day.values(), current.days(), current.matching(city, speciality, null, feeRange)),
+                counts(FeeRange.values(), current.feeRanges(), current.matching(city, speciality, day, null)));
+    }
+
+    @EventListener({ApplicationReadyEvent.class, DoctorsImportedEvent.class})
+    @Scheduled(initialDelayString = "${doctor.directory.refresh-interval:PT5M}",
+            fixedDelayString = "${doctor.directory.refresh-interval:PT5M}")
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            long start = System.nanoTime();
+            synchronized (this) {
+                changedDuringRebuild = new HashSet<>();
+            }
+            try {
+                List<DoctorMainView> doctors = doctorRepository.findAll().stream()
+                        .map(userMapper::toDoctorMainView).toList();
+                Set<Long> changed;
+                synchronized (this) {
+                    doctorsById.clear();
+                    ordered.clear();
+                    for (DoctorMainView doctor : doctors) {
+                        doctorsById.put(doctor.getId(), doctor);
+                        ordered.add(doctor);
+                    }
+                    snapshot = Snapshot.of(ordered);
+                    changed = takeChangedDuringRebuild();
+                }
+                // The read may predate changes committed while it ran, and the swap replaced what their events
+                // applied; reload them until no more changes arrive in the meantime.
+                while (!changed.isEmpty()) {
+                    Map<Long, Long> tickets = new HashMap<>();
+                    Map<Long, Optional<DoctorMainView>> reloaded = new HashMap<>();
+                    for (Long doctorId : changed) {
+                        tickets.put(doctorId, reloads.next());
+                        reloaded.put(doctorId, load(doctorId));
+                    }
+                    synchronized (this) {
+                        reloaded.forEach((doctorId, doctor) -> {
+                            if (reloads.isNewest(doctorId, tickets.get(doctorId))) {
+                                apply(doctorId, doctor);
+                            }
+                        });
+                        changed = takeChangedDuringRebuild();
+                    }
+                }
+                log.info("Loaded {} doctors into the directory in {} ms", doctors.size(),
+                        (System.nanoTime() - start) / 1_000_000);
+            } finally {
+                synchronized (this) {
+                    changedDuringRebuild = null;
+                }
+            }
+        }
+    }
+
+    // Runs after the commit, or right away when the change was made outside a transaction
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDoctorChanged(DoctorChangedEvent event) {
+        long ticket = reloads.next();
+        Optional<DoctorMainView> doctor = load(event.doctorId());
+        synchronized (this) {
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.add(event.doctorId());
+            }
+            // before the first snapshot, the running rebuild applies the change once it is loaded; a read that
+            // started before a later read of the same doctor is older than what that one applied
+            if (snapshot != null && reloads.isNewest(event.doctorId(), ticket)) {
+                apply(event.doctorId(), doctor);
+            }
+        }
+    }
+
+    private Optional<DoctorMainView> load(Long doctorId) {
+        return doctorRepository.findById(doctorId).map(userMapper::toDoctorMainView);
+    }
+
+    // Called holding this. A doctor who keeps their place in the search order is replaced in place; otherwise the
+    // positions after it shift and are rebuilt.
+    private void apply(Long doctorId, Optional<DoctorMainView> doctor) {
+        Snapshot current = snapshot;
+        DoctorMainView previous = doctorsById.remove(doctorId);
+        if (previous != null) {
+            ordered.remove(previous);
+        }
+        doctor.ifPresent(changed -> {
+            doctorsById.put(changed.getId(), changed);
+            ordered.add(changed);
+        });
+        if (previous != null && doctor.isPresent() && SEARCH_ORDER.compare(previous, doctor.get()) == 0) {
+            snapshot = current.replace(Arrays.binarySearch(current.doctors(), previous, SEARCH_ORDER),
+                    previous, doctor.get());
+        } else {
+            snapshot = Snapshot.of(ordered);
+        }
+    }
+
+    // Called holding this; recording goes on in a fresh set
+    private Set<Long> takeChangedDuringRebuild() {
+        Set<Long> changed = changedDuringRebuild;
+        changedDuringRebuild = new HashSet<>();
+        return changed;
+    }
+
+    // Code point order, which is also the byte order of UTF-8 and so of the "C" collation. String.compareTo
+    // compares UTF-16 chars and would put supplementary characters before U+E000..U+FFFF.
+    static int compareCodePoints(String a, String b) {
+        int length = Math.min(a.length(), b.length());
+        for (int i = 0; i < length; i++) {
+            if (a.charAt(i) != b.charAt(i)) {
+                return Integer.compare(a.codePointAt(i), b.codePointAt(i));
+            }
+        }
+        return Integer.compare(a.length(), b.length());
+    }
+
+    private static <E extends Enum<E>> Map<E, Integer> counts(E[] values, RoaringBitmap[] bitmaps,
+                                                               RoaringBitmap matches) {
+        Map<E, Integer> counts = new LinkedHashMap<>();
+        for (E value : values) {
+            counts.put(value, RoaringBitmap.andCardinality(matches, bitmaps[value.ordinal()]));
+        }
+        return counts;
+    }
+
+    // null fields match every doctor; ALL in the request is mapped to null
+    public record Filter(City city, DoctorSpeciality speciality, Day day, FeeRange feeRange) {
+
+        public static Filter of(DoctorSearchRequest request) {
+            return new Filter(request.getCity() == City.ALL ? null : request.getCity(),
+                    request.getDoctorSpeciality() == DoctorSpeciality.ALL ? null : request.getDoctorSpeciality(),
+                    request.getAvailableDay(), request.getFeeRange());
+        }
+    }
+
+    // doctors[position] in search order; each bitmap array is indexed by the enum ordinal
+    private record Snapshot(DoctorMainView[] doctors, RoaringBitmap all, RoaringBitmap[] cities,
+                            RoaringBitmap[] specialities, RoaringBitmap[] days, RoaringBitmap[] feeRanges) {
+
+        static Snapshot of(Collection<DoctorMainView> ordered) {
+            DoctorMainView[] doctors = ordered.toArray(DoctorMainView[]::new);
+            // positions are appended in increasing order; consecutive positions (doctors of one speciality) become
+            // run-length containers
+            List<RoaringBitmapWriter<RoaringBitmap>> cities = writers(City.values().length);
+            List<RoaringBitmapWriter<RoaringBitmap>> specialities = writers(DoctorSpeciality.values().length);
+            List<RoaringBitmapWriter<RoaringBitmap>> days = writers(Day.values().length);
+            List<RoaringBitmapWriter<RoaringBitmap>> feeRanges = writers(FeeRange.values().length);
+            for (int position = 0; position < doctors.length; position++) {
+                DoctorMainView doctor = doctors[position];
+                cities.get(doctor.getCity().ordinal()).add(position);
+                specialities.get(doctor.getDoctorSpeciality().ordinal()).add(position);
+                for (Day day : doctor.getAvailableDays()) {
+                    days.get(day.ordinal()).add(position);
+                }
+                feeRanges.get(FeeRange.of(doctor.getConsultationFee()).ordinal()).add(position);
+            }
+            return new Snapshot(doctors, RoaringBitmap.bitmapOfRange(0, doctors.length), bitmaps(cities),
+                    bitmaps(specialities), bitmaps(days), bitmaps(feeRanges));
+        }
+
+        // The doctor at position changed, but not its search key; copies only the bitmaps whose membership changed,
+        // so snapshots still held by readers stay as they were. The speciality is part of the key.
+        Snapshot replace(int position, DoctorMainView previous, DoctorMainView doctor) {
+            DoctorMainView[] replaced = doctors.clone();
+            replaced[position] = doctor;
+            return new Snapshot(replaced, all,
+                    update(cities, position, 1 << previous.getCity().ordinal(), 1 << doctor.getCity().ordinal()),
+                    specialities,
+                    update(days, position, Day.toMask(previous.getAvailableDays()),
+                            Day.toMask(doctor.getAvailableDays())),
+                    update(feeRanges, position, 1 << FeeRange.of(previous.getConsultationFee()).ordinal(),
+                            1 << FeeRange.of(doctor.getConsultationFee()).ordinal()));
+        }
+
+        // the result may be one of the snapshot's own bitmaps and must not be modified
+        RoaringBitmap matching(City city, DoctorSpeciality speciality, Day day, FeeRange feeRange) {
+            List<RoaringBitmap> filters = new ArrayList<>(4);
+            if (city != null) {
+                filters.add(cities[city.ordinal()]);
+            }
+            if (speciality != null) {
+                filters.add(specialities[speciality.ordinal()]);
+            }
+            if (day != null) {
+                filters.add(days[day.ordinal()]);
+            }
+            if (feeRange != null) {
+                filters.add(feeRanges[feeRange.ordinal()]);
+            }
+            return switch (filters.size()) {
+                case 0 -> all;
+                case 1 -> filters.getFirst();
+                default -> FastAggregation.and(filters.toArray(RoaringBitmap[]::new));
+            };
+        }
+
+        List<DoctorMainView> read(RoaringBitmap matches, int fromPosition, int size) {
+            List<DoctorMainView> page = new ArrayList<>();
+            PeekableIntIterator positions = matches.getIntIterator();
+            positions.advanceIfNeeded(fromPosition);
+            while (page.size() < size && positions.hasNext()) {
+                page.add(doctors[positions.next()]);
+            }
+            return page;
+        }
+
+        // before and after have one bit per enum ordinal the position belongs to
+        private static RoaringBitmap[] update(RoaringBitmap[] bitmaps, int position, int before, int after) {
+            if (before == after) {
+                return bitmaps;
+            }
+            RoaringBitmap[] updated = bitmaps.clone();
+            for (int ordinal = 0; ordinal < bitmaps.length; ordinal++) {
+                int bit = 1 << ordinal;
+                if ((before & bit) != (after & bit)) {
+                    updated[ordinal] = bitmaps[ordinal].clone();
+                    if ((after & bit) != 0) {
+                        updated[ordinal].add(position);
+                    } else {
+                        updated[ordinal].remove(position);
+                    }
+                }
+            }
+            return updated;
+        }
+
+        private static List<RoaringBitmapWriter<RoaringBitmap>> writers(int count) {
+            List<RoaringBitmapWriter<RoaringBitmap>> writers = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                writers.add(RoaringBitmapWriter.writer().runCompress(true).get());
+            }
+            return writers;
+        }
+
+        private static RoaringBitmap[] bitmaps(List<RoaringBitmapWriter<RoaringBitmap>> writers) {
+            return writers.stream().map(RoaringBitmapWriter::get).toArray(RoaringBitmap[]::new);
+        }
+    }
+}
@@ -2,47 +2,70 @@ package org.example.backend.service;
 
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.annotation.Timed;
 import jakarta.persistence.EntityNotFoundException;
-import jakarta.validation.ConstraintViolationException;
 import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
+import org.example.backend.config.CacheNames;
 import org.example.backend.dto.DoctorMainView;
+import org.example.backend.dto.DoctorRegisterRequest;
+import org.example.backend.event.DoctorChangedEvent;
+import org.example.backend.event.UserChangedEvent;
 import org.example.backend.exception.ErrorMessage;
+import org.example.backend.mapper.UserMapper;
 import org.example.backend.model.Doctor;
 import org.example.backend.repository.DoctorRepository;
-import org.modelmapper.ModelMapper;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalTime;
 import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
+@Timed(value = "service.method", histogram = true)
 public class DoctorService {
     private final DoctorRepository doctorRepository;
     private final Validator validator;
     private final ObjectMapper objectMapper;
     private final PasswordEncoder passwordEncoder;
-    private final ModelMapper modelMapper;
+    private final UserMapper userMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
+    @Transactional(readOnly = true)
     public DoctorMainView getDoctor(Long id){
         Doctor doctor = doctorRepository.findById(id).orElseThrow(
                 () -> new EntityNotFoundException(ErrorMessage.USER_NOT_FOUND.getMessage())
         );
-        return modelMapper.map(doctor, DoctorMainView.class);
+        return userMapper.toDoctorMainView(doctor);
     }
 
+    // Merge patch: only the properties in the body are validated and set, and with @DynamicUpdate the UPDATE covers
+    // only the columns that changed. The days collection is rewritten only when the days differ.
+    @CacheEvict(cacheNames = CacheNames.DOCTORS, key = "#id")
+    @Transactional
     public DoctorMainView updateDoctor(Long id, Map<String, Object> updates) throws JsonMappingException {
+        MergePatch<DoctorRegisterRequest> patch = MergePatch.read(objectMapper, validator, updates,
+                new DoctorRegisterRequest());
         Doctor doctor = doctorRepository.findById(id).orElseThrow(
                 () -> new EntityNotFoundException(ErrorMessage.USER_NOT_FOUND.getMessage())
         );
-        boolean passwordUpdate = updates.containsKey("password");
-        objectMapper.updateValue(doctor, updates);
-        var violations = validator.validate(doctor);
-        if (!violations.isEmpty()) {
-            throw new ConstraintViolationException(violations);
+        // the cross-field rule of @FieldsComparison, against the stored value of a time that is not patched
+        if (patch.has("startTime") || patch.has("endTime")) {
+            LocalTime startTime = patch.has("startTime") ? patch.values().getStartTime() : doctor.getStartTime();
+            LocalTime endTime = patch.has("endTime") ? patch.values().getEndTime() : doctor.getEndTime();
+            if (!startTime.isBefore(endTime)) {
+                throw new IllegalArgumentException(ErrorMessage.INVALID_WORKING_HOURS.getMessage());
+            }
         }
-        if (passwordUpdate) doctor.setPassword(passwordEncoder.encode(updates.get("password").toString()));
-        return modelMapper.map(doctorRepository.save(doctor), DoctorMainView.class);
+        userMapper.applyPatch(patch.values(), patch.fields(), doctor);
+        if (patch.has("password")) doctor.setPassword(passwordEncoder.encode(patch.values().getPassword()));
+        Doctor saved = doctorRepository.save(doctor);
+        eventPublisher.publishEvent(new UserChangedEvent(id));
+        eventPublisher.publishEvent(new DoctorChangedEvent(id));
+        return userMapper.toDoctorMainView(saved);
     }
 }
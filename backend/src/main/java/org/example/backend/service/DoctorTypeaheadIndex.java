@@ -0,0 +1,235 @@
+package org.example.backend.service;
+
+import org.example.backend.dto.DoctorSuggestion;
+import org.example.backend.event.DoctorChangedEvent;
+import org.example.backend.event.DoctorsImportedEvent;
+import org.example.backend.model.City;
+import org.example.backend.model.DoctorSpeciality;
+import org.example.backend.repository.DoctorNameMatch;
+import org.example.backend.repository.DoctorRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+// In-memory prefix index over the words of doctor names and streets, so that typeahead answers without a database
+// round trip. The words live in a sorted map, where all words starting with a prefix form one contiguous range.
+//
+// The index is built when the application is ready and after a DoctorsImportedEvent, updated after every committed
+// DoctorChangedEvent, and rebuilt on a fixed delay to pick up changes made through other instances. It only answers
+// prefix matches; PatientService falls back to the trigram query for fuzzy matches and while the index is not built
+// yet.
+@Component
+public class DoctorTypeaheadIndex {
+    private static final Logger log = LoggerFactory.getLogger(DoctorTypeaheadIndex.class);
+
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Comparator<Ranked> RANKING = Comparator.comparingInt(Ranked::rank)
+            .thenComparing(ranked -> ranked.entry().name())
+            .thenComparing(ranked -> ranked.entry().suggestion().getId());
+
+    private final DoctorRepository doctorRepository;
+    private final ConcurrentHashMap<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<String, Set<Long>> words = new ConcurrentSkipListMap<>();
+    // ids of the doctors changed while a rebuild reads the database, guarded by this; null when no rebuild runs
+    private Set<Long> changedDuringRebuild;
+    private final Object rebuildLock = new Object();
+    private final ReloadSequence reloads = new ReloadSequence();
+    private volatile boolean ready;
+
+    public DoctorTypeaheadIndex(DoctorRepository doctorRepository) {
+        this.doctorRepository = doctorRepository;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Doctors having, for every word of the input, a name or street word that starts with it. Ranked: name starts
+    // with the whole input, then all input words found in the name, then the rest; ties by name and id.
+    public List<DoctorSuggestion> suggest(String input, int limit) {
+        String normalized = normalize(input);
+        List<String> prefixes = split(normalized);
+        if (prefixes.isEmpty()) {
+            return List.of();
+        }
+        Set<Long> candidates = null;
+        for (String prefix : prefixes) {
+            Set<Long> matches = matchingPrefix(prefix);
+            if (candidates == null) {
+                candidates = matches;
+            } else {
+                candidates.retainAll(matches);
+            }
+            if (candidates.isEmpty()) {
+                return List.of();
+            }
+        }
+        // keeps only the best `limit` entries while scanning, instead of sorting every candidate
+        PriorityQueue<Ranked> best = new PriorityQueue<>(limit + 1, RANKING.reversed());
+        for (Long id : candidates) {
+            Entry entry = entries.get(id);
+            if (entry == null) {
+                continue;
+            }
+            best.add(new Ranked(entry, entry.rank(normalized, prefixes)));
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        List<Ranked> ranked = new ArrayList<>(best);
+        ranked.sort(RANKING);
+        return ranked.stream().map(r -> r.entry().suggestion()).toList();
+    }
+
+    @EventListener({ApplicationReadyEvent.class, DoctorsImportedEvent.class})
+    @Scheduled(initialDelayString = "${typeahead.index.refresh-interval:PT5M}",
+            fixedDelayString = "${typeahead.index.refresh-interval:PT5M}")
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            long start = System.nanoTime();
+            synchronized (this) {
+                changedDuringRebuild = new HashSet<>();
+            }
+            try {
+                List<DoctorNameMatch> doctors = doctorRepository.findAllTypeaheadEntries();
+                Set<Long> changed;
+                synchronized (this) {
+                    Set<Long> present = new HashSet<>();
+                    for (DoctorNameMatch doctor : doctors) {
+                        put(doctor);
+                        present.add(doctor.getId());
+                    }
+                    entries.keySet().stream().filter(id -> !present.contains(id)).toList().forEach(this::remove);
+                    changed = takeChangedDuringRebuild();
+                }
+                // The read may predate changes committed while it ran, and the loop above undid what their events
+                // applied; reload them until no more changes arrive in the meantime.
+                while (!changed.isEmpty()) {
+                    Map<Long, Long> tickets = new HashMap<>();
+                    Map<Long, Optional<DoctorNameMatch>> reloaded = new HashMap<>();
+                    for (Long doctorId : changed) {
+                        tickets.put(doctorId, reloads.next());
+                        reloaded.put(doctorId, doctorRepository.findTypeaheadEntry(doctorId));
+                    }
+                    synchronized (this) {
+                        reloaded.forEach((doctorId, doctor) -> {
+                            if (reloads.isNewest(doctorId, tickets.get(doctorId))) {
+                                apply(doctorId, doctor);
+                            }
+                        });
+                        changed = takeChangedDuringRebuild();
+                    }
+                }
+                ready = true;
+                log.info("Indexed {} doctors for typeahead in {} ms", doctors.size(),
+                        (System.nanoTime() - start) / 1_000_000);
+            } finally {
+                synchronized (this) {
+                    changedDuringRebuild = null;
+                }
+            }
+        }
+    }
+
+    // runs after the commit, or right away when the change was made outside a transaction
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDoctorChanged(DoctorChangedEvent event) {
+        long ticket = reloads.next();
+        Optional<DoctorNameMatch> doctor = doctorRepository.findTypeaheadEntry(event.doctorId());
+        synchronized (this) {
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.add(event.doctorId());
+            }
+            // a read that started before a later read of the same doctor is older than what that one applied
+            if (reloads.isNewest(event.doctorId(), ticket)) {
+                apply(event.doctorId(), doctor);
+            }
+        }
+    }
+
+    private synchronized void apply(Long doctorId, Optional<DoctorNameMatch> doctor) {
+        doctor.ifPresentOrElse(this::put, () -> remove(doctorId));
+    }
+
+    // Called holding this; recording goes on in a fresh set
+    private Set<Long> takeChangedDuringRebuild() {
+        Set<Long> changed = changedDuringRebuild;
+        changedDuringRebuild = new HashSet<>();
+        return changed;
+    }
+
+    private Set<Long> matchingPrefix(String prefix) {
+        Set<Long> ids = new HashSet<>();
+        // every word >= prefix and < prefix + the highest character starts with prefix
+        words.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values().forEach(ids::addAll);
+        return ids;
+    }
+
+    private synchronized void put(DoctorNameMatch doctor) {
+        remove(doctor.getId());
+        Entry entry = Entry.of(doctor);
+        entries.put(doctor.getId(), entry);
+        for (String word : entry.words()) {
+            words.computeIfAbsent(word, _ -> ConcurrentHashMap.newKeySet()).add(doctor.getId());
+        }
+    }
+
+    private synchronized void remove(Long doctorId) {
+        Entry entry = entries.remove(doctorId);
+        if (entry == null) {
+            return;
+        }
+        for (String word : entry.words()) {
+            words.computeIfPresent(word, (_, ids) -> {
+                ids.remove(doctorId);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    static String normalize(String text) {
+        return DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFKD)).replaceAll("")
+                .toLowerCase(Locale.ROOT).strip();
+    }
+
+    private static List<String> split(String normalized) {
+        return Arrays.stream(WORD_SEPARATOR.split(normalized)).filter(word -> !word.isEmpty()).toList();
+    }
+
+    private record Ranked(Entry entry, int rank) {
+    }
+
+    private record Entry(DoctorSuggestion suggestion, String name, List<String> nameWords, Set<String> words) {
+
+        static Entry of(DoctorNameMatch doctor) {
+            String name = normalize(doctor.getFullName());
+            List<String> nameWords = split(name);
+            Set<String> words = new HashSet<>(nameWords);
+            words.addAll(split(normalize(doctor.getStreet())));
+            DoctorSuggestion suggestion = new DoctorSuggestion(doctor.getId(), doctor.getFullName(),
+                    doctor.getStreet(), City.valueOf(doctor.getCity()),
+                    DoctorSpeciality.valueOf(doctor.getDoctorSpeciality()));
+            return new Entry(suggestion, name, nameWords, words);
+        }
+
+        int rank(String input, List<String> prefixes) {
+            if (name.startsWith(input)) {
+                return 0;
+            }
+            boolean allInName = prefixes.stream()
+                    .allMatch(prefix -> nameWords.stream().anyMatch(word -> word.startsWith(prefix)));
+            return allInName ? 1 : 2;
+        }
+    }
+}
@@ -1,108 +1,149 @@
 package org.example.backend.service;
 
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityNotFoundException;
 import org.example.backend.dto.AddMedicalRecordRequest;
+import org.example.backend.dto.CursorPage;
+import org.example.backend.dto.MedicalRecordResponse;
+import org.example.backend.dto.MedicalRecordSearchHit;
+import org.example.backend.exception.ErrorMessage;
 import org.example.backend.model.MedicalRecord;
 import org.example.backend.model.Patient;
 import org.example.backend.model.Doctor;
+import org.example.backend.model.Role;
+import org.example.backend.model.User;
+import org.example.backend.repository.DoctorRepository;
+import org.example.backend.repository.MedicalRecordMatch;
 import org.example.backend.repository.MedicalRecordRepository;
 import org.example.backend.repository.PatientRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
+@Timed(value = "service.method", histogram = true)
 public class MedicalRecordService {
     @Autowired
     private MedicalRecordRepository medicalRecordRepository;
     @Autowired
     private PatientRepository patientRepository;
+    @Autowired
+    private DoctorRepository doctorRepository;
 
-    public List<MedicalRecord> getRecordsByPatient(Patient patient) {
-        return medicalRecordRepository.findByPatient(patient);
+    public List<MedicalRecordResponse> getRecordsByPatient(Patient patient) {
+        return medicalRecordRepository.findResponsesByPatientId(patient.getId());
     }
 
-    public Optional<MedicalRecord> getRecordById(Long id) {
-        return medicalRecordRepository.findById(id);
+    public Optional<MedicalRecordResponse> getRecordById(Long id) {
+        return medicalRecordRepository.findResponseById(id);
     }
 
-    public MedicalRecord saveRecord(MedicalRecord record) {
-        return medicalRecordRepository.save(record);
+    @Transactional
+    public MedicalRecordResponse saveRecord(MedicalRecord record) {
+        return toResponse(medicalRecordRepository.save(record));
     }
 
-    public void shareRecordWithDoctor(MedicalRecord record, Doctor doctor) {
-
-        List<Doctor> doctors = record.getSharedWithDoctors();
-        if (doctors == null) {
-            doctors = new java.util.ArrayList<>();
-        }
-        if (!doctors.contains(doctor)) {
-            doctors.add(doctor);
-            record.setSharedWithDoctors(doctors);
-        }
-
-        List<MedicalRecord> records = doctor.getAccessibleMedicalRecords();
-        if (records == null) {
-            records = new java.util.ArrayList<>();
-        }
-        if (!records.contains(record)) {
-            records.add(record);
-            doctor.setAccessibleMedicalRecords(records);
+    // A record that is not the patient's is reported as not found, like one that does not exist. Nothing inserted
+    // is also what sharing an already shared record returns, so only then is the ownership looked up.
+    @Transactional
+    public void shareRecordWithDoctor(Patient patient, Long recordId, Long doctorId) {
+        verifyDoctorExists(doctorId);
+        if (medicalRecordRepository.share(recordId, patient.getId(), doctorId) == 0
+                && !medicalRecordRepository.existsByIdAndPatientId(recordId, patient.getId())) {
+            throw new EntityNotFoundException(ErrorMessage.MEDICAL_RECORD_NOT_FOUND.getMessage());
         }
+    }
 
-        medicalRecordRepository.save(record);
+    public List<MedicalRecordResponse> getSharedRecordsForDoctor(Doctor doctor) {
+        return medicalRecordRepository.findResponsesSharedWithDoctor(doctor.getId());
+    }
 
-        org.example.backend.repository.DoctorRepository doctorRepository = null;
-        try {
-            java.lang.reflect.Field repoField = this.getClass().getDeclaredField("doctorRepository");
-            repoField.setAccessible(true);
-            doctorRepository = (org.example.backend.repository.DoctorRepository) repoField.get(this);
-        } catch (Exception e) {
+    public List<MedicalRecordResponse> getSharedRecordsForPatient(Patient patient) {
+        return medicalRecordRepository.findSharedResponsesByPatientId(patient.getId());
+    }
 
+    // Keyset pagination over the timeline, newest first: each slice seeks below the (date, id) in the cursor
+    // instead of skipping rows with OFFSET.
+    public CursorPage<MedicalRecordResponse> getTimelineOfPatient(Patient patient, String cursor, int size) {
+        Limit limit = CursorPage.limit(size);
+        List<MedicalRecordResponse> rows;
+        if (cursor == null) {
+            rows = medicalRecordRepository.findTimelineByPatientId(patient.getId(), limit);
+        } else {
+            RecordKey before = RecordKey.decode(cursor);
+            rows = medicalRecordRepository.findTimelineByPatientIdBefore(patient.getId(), before.date(),
+                    before.id(), limit);
         }
-        if (doctorRepository != null) {
-            doctorRepository.save(doctor);
-        }
+        return CursorPage.of(rows, size, RecordKey::encode);
     }
 
-    public List<MedicalRecord> getSharedRecordsForDoctor(Doctor doctor) {
-        return medicalRecordRepository.findMedicalRecordsSharedWithDoctor(doctor.getId());
+    public CursorPage<MedicalRecordResponse> getSharedTimelineOfDoctor(Doctor doctor, String cursor, int size) {
+        Limit limit = CursorPage.limit(size);
+        List<MedicalRecordResponse> rows;
+        if (cursor == null) {
+            rows = medicalRecordRepository.findTimelineSharedWithDoctor(doctor.getId(), limit);
+        } else {
+            RecordKey before = RecordKey.decode(cursor);
+            rows = medicalRecordRepository.findTimelineSharedWithDoctorBefore(doctor.getId(), before.date(),
+                    before.id(), limit);
+        }
+        return CursorPage.of(rows, size, RecordKey::encode);
     }
 
-    public List<MedicalRecord> getSharedRecordsForPatient(Patient patient) {
-        List<MedicalRecord> all = medicalRecordRepository.findByPatient(patient);
-        return all.stream().filter(r -> r.getSharedWithDoctors() != null && !r.getSharedWithDoctors().isEmpty())
-                .toList();
+    // Hands the whole timeline to the consumer one record at a time, newest first. The transaction keeps the
+    // database cursor open while the consumer writes; PostgreSQL only honours the fetch size outside auto-commit.
+    @Transactional(readOnly = true)
+    public void streamTimelineOfPatient(Long patientId, Consumer<MedicalRecordResponse> consumer) {
+        try (Stream<MedicalRecordResponse> records = medicalRecordRepository.streamTimelineByPatientId(patientId)) {
+            records.forEach(consumer);
+        }
     }
 
-    public void updateMedicalRecord(MedicalRecord record) {
-        medicalRecordRepository.save(record);
+    @Transactional(readOnly = true)
+    public void streamSharedTimelineOfDoctor(Long doctorId, Consumer<MedicalRecordResponse> consumer) {
+        try (Stream<MedicalRecordResponse> records =
+                     medicalRecordRepository.streamTimelineSharedWithDoctor(doctorId)) {
+            records.forEach(consumer);
+        }
     }
 
-    public void shareAllRecordsWithDoctor(Patient patient, Doctor doctor) {
-        List<MedicalRecord> records = medicalRecordRepository.findByPatient(patient);
-        for (MedicalRecord record : records) {
-            List<Doctor> sharedDoctors = record.getSharedWithDoctors();
-            if (sharedDoctors == null) {
-                sharedDoctors = new java.util.ArrayList<>();
-            }
-            if (!sharedDoctors.contains(doctor)) {
-                sharedDoctors.add(doctor);
-                record.setSharedWithDoctors(sharedDoctors);
-            }
-
-            List<MedicalRecord> doctorRecords = doctor.getAccessibleMedicalRecords();
-            if (doctorRecords == null) {
-                doctorRecords = new java.util.ArrayList<>();
-            }
-            if (!doctorRecords.contains(record)) {
-                doctorRecords.add(record);
-                doctor.setAccessibleMedicalRecords(doctorRecords);
-            }
-            medicalRecordRepository.save(record);
+    // Full-text search, best match first: patients search their own records, doctors the records shared with
+    // them. Slices are keyset-paginated on (rank, id); the first slice starts above every possible rank.
+    public CursorPage<MedicalRecordSearchHit> searchRecords(User authenticatedUser, String query, String cursor,
+            int size) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException(ErrorMessage.INVALID_SEARCH_QUERY.getMessage());
+        }
+        int limit = CursorPage.limit(size).max();
+        MatchKey before = cursor == null ? new MatchKey(Float.POSITIVE_INFINITY, Long.MAX_VALUE)
+                : CursorPage.decode(cursor, 2, keys -> new MatchKey(Float.parseFloat(keys[0]),
+                        Long.parseLong(keys[1])));
+        List<MedicalRecordMatch> rows = List.of();
+        if (authenticatedUser.getRole() == Role.PATIENT) {
+            rows = medicalRecordRepository.searchOfPatient(authenticatedUser.getId(), query, before.rank(),
+                    before.id(), limit);
+        } else if (authenticatedUser.getRole() == Role.DOCTOR) {
+            rows = medicalRecordRepository.searchSharedWithDoctor(authenticatedUser.getId(), query, before.rank(),
+                    before.id(), limit);
         }
+        List<MedicalRecordSearchHit> hits = rows.stream().map(MedicalRecordService::toSearchHit).toList();
+        return CursorPage.of(hits, size, last -> CursorPage.encode(last.getRank(), last.getRecord().getId()));
+    }
+
+    // one INSERT ... SELECT for all of the patient's records; returns how many were newly shared
+    @Transactional
+    public int shareAllRecordsWithDoctor(Patient patient, Long doctorId) {
+        verifyDoctorExists(doctorId);
+        return medicalRecordRepository.shareAllOfPatient(patient.getId(), doctorId);
     }
 
+    @Transactional
     public MedicalRecord addMedicalRecod(AddMedicalRecordRequest newRecord, Doctor doctor) {
         Patient patient = patientRepository.findById(newRecord.getPatientId())
                 .orElseThrow(() -> new RuntimeException("Patient not found"));
@@ -112,6 +153,48 @@ public class MedicalRecordService {
                 .doctor(doctor)
                 .patient(patient)
                 .build();
-        return medicalRecordRepository.save(record);
+        // the author can read the record among the ones shared with them
+        medicalRecordRepository.saveAndFlush(record);
+        medicalRecordRepository.share(record.getId(), patient.getId(), doctor.getId());
+        return record;
+    }
+
+    private void verifyDoctorExists(Long doctorId) {
+        if (!doctorRepository.existsById(doctorId)) {
+            throw new EntityNotFoundException(ErrorMessage.USER_NOT_FOUND.getMessage());
+        }
+    }
+
+    private record RecordKey(LocalDate date, Long id) {
+
+        static RecordKey decode(String cursor) {
+            return CursorPage.decode(cursor, 2, keys -> new RecordKey(LocalDate.parse(keys[0]),
+                    Long.parseLong(keys[1])));
+        }
+
+        static String encode(MedicalRecordResponse record) {
+            return CursorPage.encode(record.getDate(), record.getId());
+        }
+    }
+
+    private record MatchKey(float rank, Long id) {
+    }
+
+    private static MedicalRecordSearchHit toSearchHit(MedicalRecordMatch match) {
+        MedicalRecordResponse record = new MedicalRecordResponse(match.getId(), match.getContent(), match.getDate(),
+                match.getDoctorId(), match.getDoctorName(), match.getPatientId(), match.getPatientName());
+        return new MedicalRecordSearchHit(record, match.getHeadline(), match.getRank());
+    }
+
+    private MedicalRecordResponse toResponse(MedicalRecord record) {
+        return MedicalRecordResponse.builder()
+                .id(record.getId())
+                .content(record.getContent())
+                .date(record.getDate())
+                .doctorId(record.getDoctor() != null ? record.getDoctor().getId() : null)
+                .doctorName(record.getDoctor() != null ? record.getDoctor().getFullName() : null)
+                .patientId(record.getPatient() != null ? record.getPatient().getId() : null)
+                .patientName(record.getPatient() != null ? record.getPatient().getFullName() : null)
+                .build();
     }
 }
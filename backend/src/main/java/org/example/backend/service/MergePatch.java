@@ -0,0 +1,38 @@
+package org.example.backend.service;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validator;
+import jakarta.validation.metadata.BeanDescriptor;
+
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+// A JSON merge patch of a profile, read into its typed request DTO. The keys of the body are the properties to change
+// (null clears, which the constraints then reject), and only their constraints are checked: absent properties keep
+// their stored values, which were valid already. Cross-field rules are left to the caller.
+record MergePatch<T>(T values, Set<String> fields) {
+
+    static <T> MergePatch<T> read(ObjectMapper objectMapper, Validator validator, Map<String, Object> updates,
+                                  T target) throws JsonMappingException {
+        T values = objectMapper.updateValue(target, updates);
+        BeanDescriptor descriptor = validator.getConstraintsForClass(values.getClass());
+        Set<ConstraintViolation<T>> violations = new LinkedHashSet<>();
+        for (String field : updates.keySet()) {
+            if (descriptor.getConstraintsForProperty(field) != null) {
+                violations.addAll(validator.validateProperty(values, field));
+            }
+        }
+        if (!violations.isEmpty()) {
+            throw new ConstraintViolationException(violations);
+        }
+        return new MergePatch<>(values, updates.keySet());
+    }
+
+    boolean has(String field) {
+        return fields.contains(field);
+    }
+}
@@ -2,94 +2,214 @@ package org.example.backend.service;
 
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.annotation.Timed;
 import jakarta.persistence.EntityNotFoundException;
-import jakarta.validation.ConstraintViolationException;
 import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
+import org.example.backend.config.CacheNames;
+import org.example.backend.dto.CursorPage;
+import org.example.backend.dto.DoctorFacets;
 import org.example.backend.dto.DoctorMainView;
 import org.example.backend.dto.DoctorSearchRequest;
+import org.example.backend.dto.DoctorSuggestion;
+import org.example.backend.dto.EarliestAvailability;
 import org.example.backend.dto.UserMainView;
+import org.example.backend.dto.UserRegisterRequest;
+import org.example.backend.event.UserChangedEvent;
 import org.example.backend.exception.ErrorMessage;
+import org.example.backend.exception.ServiceBusyException;
+import org.example.backend.mapper.UserMapper;
 import org.example.backend.model.City;
 import org.example.backend.model.Doctor;
 import org.example.backend.model.DoctorSpeciality;
 import org.example.backend.model.Patient;
+import org.example.backend.repository.DoctorNameMatch;
 import org.example.backend.repository.DoctorRepository;
+import org.example.backend.repository.FirstFreeDay;
 import org.example.backend.repository.PatientRepository;
-import org.modelmapper.ModelMapper;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@Timed(value = "service.method", histogram = true)
 public class PatientService {
+    // shorter inputs are not searched: they would match most doctors, and the user is still typing
+    static final int MIN_TYPEAHEAD_LENGTH = 2;
+    static final int MAX_TYPEAHEAD_RESULTS = 20;
+    // the directory is loaded within seconds of startup
+    private static final Duration DIRECTORY_RETRY_AFTER = Duration.ofSeconds(2);
+
     private final DoctorRepository doctorRepository;
     private final PatientRepository patientRepository;
     private final Validator validator;
     private final ObjectMapper objectMapper;
     private final PasswordEncoder passwordEncoder;
-    private final ModelMapper modelMapper;
+    private final UserMapper userMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DoctorTypeaheadIndex typeaheadIndex;
+    private final DoctorDirectory doctorDirectory;
 
     public UserMainView getPatient(Long id) {
         Patient patient = patientRepository.findById(id).orElseThrow(
                 () -> new EntityNotFoundException(ErrorMessage.USER_NOT_FOUND.getMessage()));
-        return modelMapper.map(patient, UserMainView.class);
+        return userMapper.toUserMainView(patient);
     }
 
+    // Merge patch: only the properties in the body are validated and set, and the UPDATE covers only changed columns
+    @Transactional
     public UserMainView updatePatient(Long id, Map<String, Object> updates) throws JsonMappingException {
+        MergePatch<UserRegisterRequest> patch = MergePatch.read(objectMapper, validator, updates,
+                new UserRegisterRequest());
         Patient patient = patientRepository.findById(id).orElseThrow(
                 () -> new EntityNotFoundException(ErrorMessage.USER_NOT_FOUND.getMessage()));
-        boolean passwordUpdate = updates.containsKey("password");
-        objectMapper.updateValue(patient, updates);
-        var violations = validator.validate(patient);
-        if (!violations.isEmpty()) {
-            throw new ConstraintViolationException(violations);
-        }
-        if (passwordUpdate)
-            patient.setPassword(passwordEncoder.encode(updates.get("password").toString()));
-        return modelMapper.map(patientRepository.save(patient), UserMainView.class);
+        userMapper.applyPatch(patch.values(), patch.fields(), patient);
+        if (patch.has("password"))
+            patient.setPassword(passwordEncoder.encode(patch.values().getPassword()));
+        Patient saved = patientRepository.save(patient);
+        eventPublisher.publishEvent(new UserChangedEvent(id));
+        return userMapper.toUserMainView(saved);
     }
 
+    // Answered from the in-memory DoctorDirectory; the database is only searched until the directory is loaded.
+    // No transaction: it would take a pooled connection even when the directory answers. The fallback maps only
+    // basic columns of the doctors, so it needs no open session.
     public List<DoctorMainView> doctorsSearch(DoctorSearchRequest searchRequest, int page, int size) {
-        Pageable pageable = PageRequest.of(page, size, Sort.by("doctorSpeciality", "fullName").ascending());
-        // Case 1: All specialities and cities
-        if (searchRequest.getDoctorSpeciality() == DoctorSpeciality.ALL && searchRequest.getCity() == City.ALL) {
-            return doctorRepository.findAll(pageable).getContent().stream()
-                    .map(doctor -> modelMapper.map(doctor, DoctorMainView.class))
-                    .collect(Collectors.toList());
-        }
-        // Case 2: Specific speciality and all cities
-        if (searchRequest.getCity() == City.ALL) {
-            return doctorRepository.findByDoctorSpeciality(searchRequest.getDoctorSpeciality(), pageable).getContent()
-                    .stream()
-                    .map(doctor -> modelMapper.map(doctor, DoctorMainView.class))
-                    .collect(Collectors.toList());
-        }
-        // Case 3: All specialities and specific city
-        if (searchRequest.getDoctorSpeciality() == DoctorSpeciality.ALL) {
-            return doctorRepository.findByCity(searchRequest.getCity(), pageable).getContent().stream()
-                    .map(doctor -> modelMapper.map(doctor, DoctorMainView.class))
-                    .collect(Collectors.toList());
+        // ordered by the query itself (doctorSpeciality, fullName, id)
+        Pageable pageable = PageRequest.of(page, size);
+        if (doctorDirectory.isReady()) {
+            return doctorDirectory.search(DoctorDirectory.Filter.of(searchRequest), pageable.getOffset(), size);
         }
-        // Case 4: Specific speciality and specific city
-        return doctorRepository.findByCityAndDoctorSpeciality(
-                searchRequest.getCity(),
-                searchRequest.getDoctorSpeciality(),
-                pageable).getContent().stream().map(doctor -> modelMapper.map(doctor, DoctorMainView.class))
+        return doctorRepository.search(city(searchRequest), speciality(searchRequest),
+                        searchRequest.availableDayBit(), searchRequest.minFee(), searchRequest.maxFee(), pageable)
+                .getContent().stream()
+                .map(userMapper::toDoctorMainView)
                 .collect(Collectors.toList());
     }
 
+    // Keyset pagination on (doctorSpeciality, fullName, id), the same order as doctorsSearch
+    public CursorPage<DoctorMainView> scrollDoctors(DoctorSearchRequest searchRequest, String cursor, int size) {
+        Limit limit = CursorPage.limit(size);
+        DoctorKey after = cursor == null ? null : CursorPage.decode(cursor, 3,
+                keys -> new DoctorKey(DoctorSpeciality.valueOf(keys[0]), Long.parseLong(keys[1]), keys[2]));
+        List<DoctorMainView> rows;
+        if (doctorDirectory.isReady()) {
+            DoctorDirectory.Filter filter = DoctorDirectory.Filter.of(searchRequest);
+            rows = after == null ? doctorDirectory.search(filter, 0, limit.max())
+                    : doctorDirectory.searchAfter(filter, after.speciality(), after.fullName(), after.id(), limit.max());
+        } else {
+            City city = city(searchRequest);
+            DoctorSpeciality speciality = speciality(searchRequest);
+            int dayBit = searchRequest.availableDayBit();
+            double minFee = searchRequest.minFee();
+            double maxFee = searchRequest.maxFee();
+            List<Doctor> doctors = after == null
+                    ? doctorRepository.searchFirst(city, speciality, dayBit, minFee, maxFee, limit)
+                    : doctorRepository.searchAfter(city, speciality, dayBit, minFee, maxFee, after.speciality(),
+                            after.fullName(), after.id(), limit);
+            rows = doctors.stream().map(userMapper::toDoctorMainView).toList();
+        }
+        // the full name is free text, so it goes last in the cursor
+        return CursorPage.of(rows, size, last -> CursorPage.encode(last.getDoctorSpeciality(), last.getId(),
+                last.getFullName()));
+    }
+
+    @Cacheable(cacheNames = CacheNames.DOCTORS, key = "#doctorId")
+    @Transactional(readOnly = true)
     public DoctorMainView getDoctorById(Long doctorId) {
         Doctor doctor = doctorRepository.findById(doctorId).orElseThrow(
                 () -> new EntityNotFoundException(ErrorMessage.USER_NOT_FOUND.getMessage())
         );
-        return modelMapper.map(doctor, DoctorMainView.class);
+        return userMapper.toDoctorMainView(doctor);
+    }
+
+    // Doctors ordered by their first day with free capacity in the window: one set-based query finds the days,
+    // a second loads the doctors of that page
+    @Transactional(readOnly = true)
+    public List<EarliestAvailability> findEarliestAvailable(DoctorSearchRequest searchRequest, LocalDate from,
+                                                            LocalDate to, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException(ErrorMessage.INVALID_PAGE_SIZE.getMessage());
+        }
+        DateWindow window = DateWindow.of(from, to);
+        City city = city(searchRequest);
+        DoctorSpeciality speciality = speciality(searchRequest);
+        List<FirstFreeDay> days = doctorRepository.findFirstFreeDays(city != null ? city.name() : null,
+                speciality != null ? speciality.name() : null, searchRequest.availableDayMask(),
+                searchRequest.minFee(), searchRequest.maxFee(), window.start(), window.end(), size);
+        Map<Long, Doctor> doctors = doctorRepository.findAllById(days.stream().map(FirstFreeDay::getDoctorId).toList())
+                .stream()
+                .collect(Collectors.toMap(Doctor::getId, Function.identity()));
+        return days.stream()
+                .map(day -> new EarliestAvailability(userMapper.toDoctorMainView(doctors.get(day.getDoctorId())),
+                        day.getDate(), day.getRemaining()))
+                .toList();
+    }
+
+    // Doctor counts per city, speciality, day and fee range for the filters of the request, from the in-memory
+    // DoctorDirectory; the counts need the whole directory, so there is no database fallback
+    public DoctorFacets doctorFacets(DoctorSearchRequest searchRequest) {
+        if (!doctorDirectory.isReady()) {
+            throw new ServiceBusyException(ErrorMessage.SERVICE_BUSY.getMessage(), DIRECTORY_RETRY_AFTER);
+        }
+        return doctorDirectory.facets(DoctorDirectory.Filter.of(searchRequest));
+    }
+
+    // Top matches of the input against doctor names and streets. Word prefixes are answered from the in-memory
+    // index; only input that matches no word by prefix (usually a typo) goes to the fuzzy trigram query.
+    public List<DoctorSuggestion> typeahead(String query, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException(ErrorMessage.INVALID_PAGE_SIZE.getMessage());
+        }
+        String input = query.strip();
+        if (input.length() < MIN_TYPEAHEAD_LENGTH) {
+            return List.of();
+        }
+        int size = Math.min(limit, MAX_TYPEAHEAD_RESULTS);
+        if (typeaheadIndex.isReady()) {
+            List<DoctorSuggestion> prefixMatches = typeaheadIndex.suggest(input, size);
+            if (!prefixMatches.isEmpty()) {
+                return prefixMatches;
+            }
+        }
+        return doctorRepository.findTypeaheadMatches(input, escapeLike(input) + "%", size).stream()
+                .map(PatientService::toSuggestion)
+                .toList();
+    }
+
+    private static DoctorSuggestion toSuggestion(DoctorNameMatch match) {
+        return new DoctorSuggestion(match.getId(), match.getFullName(), match.getStreet(),
+                City.valueOf(match.getCity()), DoctorSpeciality.valueOf(match.getDoctorSpeciality()));
+    }
+
+    // the input is matched literally: % and _ typed by the user are not wildcards
+    static String escapeLike(String input) {
+        return input.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    // ALL is not stored on doctors; the search queries take null for "any"
+    private static City city(DoctorSearchRequest searchRequest) {
+        return searchRequest.getCity() == City.ALL ? null : searchRequest.getCity();
+    }
+
+    private static DoctorSpeciality speciality(DoctorSearchRequest searchRequest) {
+        return searchRequest.getDoctorSpeciality() == DoctorSpeciality.ALL ? null
+                : searchRequest.getDoctorSpeciality();
+    }
+
+    private record DoctorKey(DoctorSpeciality speciality, Long id, String fullName) {
     }
 }
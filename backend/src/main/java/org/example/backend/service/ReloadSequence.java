@@ -0,0 +1,29 @@
+package org.example.backend.service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Orders the reloads of a doctor's row by an in-memory index. Each read takes a ticket before it starts, and its
+// result is applied only if no read of the same doctor that started later was applied already. A read that started
+// later sees every change committed before the earlier one started, so the index never goes back to an older row
+// when two events for one doctor are handled at the same time.
+class ReloadSequence {
+    private long last;
+    // ticket of the last applied read per doctor
+    private final Map<Long, Long> applied = new HashMap<>();
+
+    // taken right before the row is read
+    synchronized long next() {
+        return ++last;
+    }
+
+    // true (and recorded) when the read with this ticket is the newest one of the doctor so far
+    synchronized boolean isNewest(Long doctorId, long ticket) {
+        Long previous = applied.get(doctorId);
+        if (previous != null && previous > ticket) {
+            return false;
+        }
+        applied.put(doctorId, ticket);
+        return true;
+    }
+}
@@ -0,0 +1,66 @@
+package org.example.backend.validator;
+
+import jakarta.validation.ConstraintDeclarationException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+// Reads a fixed set of fields by name, for cross-field constraints. The fields are looked up once per validated class,
+// walking up its superclasses, and kept as method handles: reading them afterwards needs no reflection and allocates
+// nothing. A field that does not exist is a mistake in the constraint declaration and is reported as such.
+public final class FieldReader {
+    private static final MethodType GETTER = MethodType.methodType(Object.class, Object.class);
+
+    private final String[] fieldNames;
+    private final ClassValue<MethodHandle[]> getters = new ClassValue<>() {
+        @Override
+        protected MethodHandle[] computeValue(Class<?> type) {
+            MethodHandle[] handles = new MethodHandle[fieldNames.length];
+            for (int i = 0; i < fieldNames.length; i++) {
+                handles[i] = getter(type, fieldNames[i]);
+            }
+            return handles;
+        }
+    };
+
+    public FieldReader(String... fieldNames) {
+        this.fieldNames = fieldNames.clone();
+    }
+
+    // the value of fieldNames[field] in target
+    public Object read(Object target, int field) {
+        try {
+            return (Object) getters.get(target.getClass())[field].invokeExact(target);
+        } catch (RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static MethodHandle getter(Class<?> type, String name) {
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            Field field;
+            try {
+                field = current.getDeclaredField(name);
+            } catch (NoSuchFieldException ex) {
+                continue;
+            }
+            if (Modifier.isStatic(field.getModifiers())) {
+                break;
+            }
+            try {
+                return MethodHandles.privateLookupIn(current, MethodHandles.lookup()).unreflectGetter(field)
+                        .asType(GETTER);
+            } catch (IllegalAccessException ex) {
+                throw new ConstraintDeclarationException("Field " + name + " of " + current.getName()
+                        + " is not accessible", ex);
+            }
+        }
+        throw new ConstraintDeclarationException("No instance field " + name + " in " + type.getName()
+                + " or its superclasses");
+    }
+}
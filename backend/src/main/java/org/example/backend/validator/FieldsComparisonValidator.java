@@ -3,42 +3,41 @@ package org.example.backend.validator;
 import jakarta.validation.ConstraintValidator;
 import jakarta.validation.ConstraintValidatorContext;
 
-import java.lang.reflect.Field;
-
 public class FieldsComparisonValidator implements ConstraintValidator<FieldsComparison, Object> {
-    private String smallerField; // field name in annotated object that represents smaller value
-    private String biggerField;  // field name in annotated object that represents bigger value
+    private static final int SMALLER = 0;
+    private static final int BIGGER = 1;
+
+    // the smallerField and biggerField of the annotation, resolved once per validated class (including subclasses
+    // such as DoctorMainView, whose fields are declared on DoctorRegisterRequest)
+    private FieldReader fields;
 
     @Override
     public void initialize(FieldsComparison constraintAnnotation) {
-        this.smallerField = constraintAnnotation.smallerField();
-        this.biggerField = constraintAnnotation.biggerField();
+        this.fields = new FieldReader(constraintAnnotation.smallerField(), constraintAnnotation.biggerField());
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public boolean isValid(Object value, ConstraintValidatorContext context) {
-        try {
-            Field startField = value.getClass().getDeclaredField(smallerField);
-            Field endField = value.getClass().getDeclaredField(biggerField);
-
-            startField.setAccessible(true); // bypass private access
-            endField.setAccessible(true);   // bypass private access
-
-            Object startValue = startField.get(value);
-            Object endValue = endField.get(value);
+        if (value == null) {
+            return true;
+        }
+        Object startValue = fields.read(value, SMALLER);
+        Object endValue = fields.read(value, BIGGER);
 
-            if (startValue == null || endValue == null) {
-                return true; // Null values are considered valid
-            }
+        if (startValue == null || endValue == null) {
+            return true; // Null values are considered valid
+        }
 
-            if (startValue instanceof Comparable && endValue instanceof Comparable) {
-                Comparable<Object> startComparable = (Comparable<Object>) startValue;
+        if (startValue instanceof Comparable && endValue instanceof Comparable) {
+            Comparable<Object> startComparable = (Comparable<Object>) startValue;
+            try {
                 return startComparable.compareTo(endValue) < 0; // Check if startValue < endValue
+            } catch (ClassCastException ex) {
+                return false; // Invalid if the fields hold different types
             }
-
-            return false; // Invalid if fields are not comparable
-        } catch (Exception e) {
-            return false; // Invalid if reflection fails
         }
+
+        return false; // Invalid if fields are not comparable
     }
-}
\ No newline at end of file
+}
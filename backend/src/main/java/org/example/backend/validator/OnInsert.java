@@ -0,0 +1,7 @@
+package org.example.backend.validator;
+
+// Constraint group validated only when an entity is inserted (jakarta.persistence.validation.group.pre-persist), for
+// constraints that would load a lazy collection if they ran on every update. Updates of such properties are
+// validated by the services, e.g. by MergePatch for profile edits.
+public interface OnInsert {
+}
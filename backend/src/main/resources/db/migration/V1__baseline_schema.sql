@@ -0,0 +1,61 @@
+-- Schema as previously created by spring.jpa.hibernate.ddl-auto=update.
+-- Every statement is guarded with IF NOT EXISTS, so databases created by Hibernate before migrations were
+-- introduced are baselined at version 0 and run this script as a no-op (apart from any table they lack).
+
+CREATE TABLE IF NOT EXISTS users (
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    type         VARCHAR(31)  NOT NULL,
+    full_name    VARCHAR(50)  NOT NULL,
+    email        VARCHAR(255) NOT NULL UNIQUE,
+    password     VARCHAR(255) NOT NULL,
+    phone_number VARCHAR(11)  NOT NULL UNIQUE
+);
+
+CREATE TABLE IF NOT EXISTS patients (
+    id BIGINT PRIMARY KEY REFERENCES users (id)
+);
+
+CREATE TABLE IF NOT EXISTS doctors (
+    id                BIGINT PRIMARY KEY REFERENCES users (id),
+    city              VARCHAR(255)     NOT NULL,
+    street            VARCHAR(255)     NOT NULL,
+    doctor_speciality VARCHAR(255)     NOT NULL,
+    info              TEXT             NOT NULL,
+    patient_number    INTEGER          NOT NULL,
+    start_time        TIME(6)          NOT NULL,
+    end_time          TIME(6)          NOT NULL,
+    consultation_fee  DOUBLE PRECISION NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS doctor_available_days (
+    doctor_id BIGINT       NOT NULL REFERENCES doctors (id),
+    day       VARCHAR(255) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS appointments (
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    date       DATE   NOT NULL,
+    patient_id BIGINT NOT NULL REFERENCES patients (id),
+    doctor_id  BIGINT NOT NULL REFERENCES doctors (id),
+    UNIQUE (date, patient_id, doctor_id)
+);
+
+CREATE TABLE IF NOT EXISTS medical_records (
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    content    TEXT   NOT NULL,
+    date       DATE   NOT NULL,
+    doctor_id  BIGINT NOT NULL REFERENCES doctors (id),
+    patient_id BIGINT NOT NULL REFERENCES patients (id)
+);
+
+CREATE TABLE IF NOT EXISTS doctor_medical_records (
+    doctor_id         BIGINT NOT NULL REFERENCES doctors (id),
+    medical_record_id BIGINT NOT NULL REFERENCES medical_records (id)
+);
+
+CREATE TABLE IF NOT EXISTS doctor_day_slots (
+    doctor_id BIGINT  NOT NULL,
+    date      DATE    NOT NULL,
+    booked    INTEGER NOT NULL,
+    PRIMARY KEY (date, doctor_id)
+);
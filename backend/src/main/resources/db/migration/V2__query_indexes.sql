@@ -0,0 +1,32 @@
+-- Indexes for the access paths of the repositories.
+
+-- AppointmentRepository: doctor_id = ? AND date = ? (capacity count) and
+-- doctor_id = ? AND (date, id) > (?, ?) ORDER BY date, id (doctor's appointment list)
+CREATE INDEX IF NOT EXISTS idx_appointments_doctor_date ON appointments (doctor_id, date, id);
+
+-- AppointmentRepository: patient_id = ? AND date >= ? ORDER BY date, id (patient's appointment list)
+CREATE INDEX IF NOT EXISTS idx_appointments_patient_date ON appointments (patient_id, date, id);
+
+-- DoctorRepository: city = ? [AND doctor_speciality = ?] and doctor_speciality = ? filters; the sort on
+-- users.full_name is resolved after the join, so the indexes cover the filter and the join key
+CREATE INDEX IF NOT EXISTS idx_doctors_city_speciality ON doctors (city, doctor_speciality) INCLUDE (id);
+CREATE INDEX IF NOT EXISTS idx_doctors_speciality ON doctors (doctor_speciality) INCLUDE (id);
+
+-- UserRepository.findByEmailIgnoreCase: Spring Data compares upper(email) = upper(?)
+CREATE INDEX IF NOT EXISTS idx_users_upper_email ON users (upper(email));
+
+-- MedicalRecordRepository: records shared with a doctor (doctor_id = ?) and the reverse lookup by record.
+-- The join table has no key, so duplicated shares are removed before making the pair unique.
+DELETE FROM doctor_medical_records a
+    USING doctor_medical_records b
+WHERE a.ctid > b.ctid
+  AND a.doctor_id = b.doctor_id
+  AND a.medical_record_id = b.medical_record_id;
+CREATE UNIQUE INDEX IF NOT EXISTS uk_doctor_medical_records ON doctor_medical_records (doctor_id, medical_record_id);
+CREATE INDEX IF NOT EXISTS idx_doctor_medical_records_record ON doctor_medical_records (medical_record_id);
+
+-- MedicalRecordRepository: patient_id = ? (patient's records)
+CREATE INDEX IF NOT EXISTS idx_medical_records_patient ON medical_records (patient_id);
+
+-- element collection loaded for every doctor view
+CREATE INDEX IF NOT EXISTS idx_doctor_available_days_doctor ON doctor_available_days (doctor_id);
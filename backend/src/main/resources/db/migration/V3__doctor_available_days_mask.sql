@@ -0,0 +1,14 @@
+-- Working days as a 7-bit mask on the doctor row (bit 0 = MONDAY ... bit 6 = SUNDAY, i.e. 1 << (isodow - 1)),
+-- so searches and availability checks no longer read doctor_available_days.
+ALTER TABLE doctors ADD COLUMN IF NOT EXISTS available_days_mask INTEGER NOT NULL DEFAULT 0;
+
+UPDATE doctors d
+SET available_days_mask = COALESCE((
+    SELECT bit_or(1 << (array_position(
+            ARRAY['MONDAY', 'TUESDAY', 'WEDNESDAY', 'THURSDAY', 'FRIDAY', 'SATURDAY', 'SUNDAY']::varchar[],
+            ad.day) - 1))
+    FROM doctor_available_days ad
+    WHERE ad.doctor_id = d.id), 0);
+
+ALTER TABLE doctors DROP CONSTRAINT IF EXISTS ck_doctors_available_days_mask;
+ALTER TABLE doctors ADD CONSTRAINT ck_doctors_available_days_mask CHECK (available_days_mask BETWEEN 0 AND 127);
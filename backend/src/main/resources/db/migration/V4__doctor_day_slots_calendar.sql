@@ -0,0 +1,11 @@
+-- Availability calendar: reads the counters of one doctor over a date range.
+CREATE INDEX IF NOT EXISTS idx_doctor_day_slots_doctor_date ON doctor_day_slots (doctor_id, date) INCLUDE (booked);
+
+-- Counters are created lazily on the first booking of a doctor-day. Create the missing ones for upcoming days
+-- that already have appointments, so that "no row" reliably means "nothing booked".
+INSERT INTO doctor_day_slots (doctor_id, date, booked)
+SELECT a.doctor_id, a.date, COUNT(*)
+FROM appointments a
+WHERE a.date >= CURRENT_DATE
+GROUP BY a.doctor_id, a.date
+ON CONFLICT (doctor_id, date) DO NOTHING;
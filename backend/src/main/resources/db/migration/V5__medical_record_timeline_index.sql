@@ -0,0 +1,5 @@
+-- MedicalRecordRepository: patient_id = ? AND (date, id) < (?, ?) ORDER BY date DESC, id DESC (patient's timeline).
+-- Scanned backwards, the index returns the newest records first, so a timeline slice never sorts. It also serves
+-- every patient_id = ? lookup, which makes the single-column index redundant.
+CREATE INDEX IF NOT EXISTS idx_medical_records_patient_date ON medical_records (patient_id, date, id);
+DROP INDEX IF EXISTS idx_medical_records_patient;
@@ -0,0 +1,13 @@
+-- Full-text search over medical record content. The tsvector is generated by PostgreSQL on every insert and
+-- update, so it never goes stale and the application never writes it.
+ALTER TABLE medical_records
+    ADD COLUMN IF NOT EXISTS content_tsv tsvector
+        GENERATED ALWAYS AS (to_tsvector('english', content)) STORED;
+
+-- btree_gin lets patient_id live in the same GIN index as the tsvector. A patient's search then intersects
+-- the patient's entries with the matches of the terms inside one index scan, instead of ANDing a bitmap of every
+-- record in the table that contains a common word. A multicolumn GIN index is just as effective for a condition
+-- on content_tsv alone, which is what the search over the records shared with a doctor uses.
+CREATE EXTENSION IF NOT EXISTS btree_gin;
+CREATE INDEX IF NOT EXISTS idx_medical_records_patient_content_tsv
+    ON medical_records USING GIN (patient_id, content_tsv);
@@ -0,0 +1,7 @@
+-- Doctor typeahead: prefix (ILIKE 'abc%') and fuzzy (word_similarity, <%) matches on the doctor's name and
+-- street. Trigram GIN indexes answer both kinds of predicate. Names live in users, so that index is partial and
+-- only covers doctors.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX IF NOT EXISTS idx_users_doctor_full_name_trgm
+    ON users USING GIN (full_name gin_trgm_ops) WHERE type = 'DOCTOR';
+CREATE INDEX IF NOT EXISTS idx_doctors_street_trgm ON doctors USING GIN (street gin_trgm_ops);
@@ -0,0 +1,17 @@
+-- Ids of users, appointments and medical records come from sequences that step by 50. Hibernate takes a whole
+-- block of ids per nextval (pooled-lo optimizer, allocationSize = 50), so it can batch inserts, which IDENTITY
+-- columns prevent. The column defaults keep plain SQL inserts working; each of them uses up one block.
+ALTER TABLE users ALTER COLUMN id DROP IDENTITY IF EXISTS;
+CREATE SEQUENCE IF NOT EXISTS users_seq INCREMENT BY 50 OWNED BY users.id;
+SELECT setval('users_seq', COALESCE(MAX(id), 0) + 1, false) FROM users;
+ALTER TABLE users ALTER COLUMN id SET DEFAULT nextval('users_seq');
+
+ALTER TABLE appointments ALTER COLUMN id DROP IDENTITY IF EXISTS;
+CREATE SEQUENCE IF NOT EXISTS appointments_seq INCREMENT BY 50 OWNED BY appointments.id;
+SELECT setval('appointments_seq', COALESCE(MAX(id), 0) + 1, false) FROM appointments;
+ALTER TABLE appointments ALTER COLUMN id SET DEFAULT nextval('appointments_seq');
+
+ALTER TABLE medical_records ALTER COLUMN id DROP IDENTITY IF EXISTS;
+CREATE SEQUENCE IF NOT EXISTS medical_records_seq INCREMENT BY 50 OWNED BY medical_records.id;
+SELECT setval('medical_records_seq', COALESCE(MAX(id), 0) + 1, false) FROM medical_records;
+ALTER TABLE medical_records ALTER COLUMN id SET DEFAULT nextval('medical_records_seq');
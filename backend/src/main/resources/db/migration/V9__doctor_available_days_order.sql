@@ -0,0 +1,15 @@
+-- The working days in their given order, 3 bits per day (ordinal + 1, MONDAY = 1 ... SUNDAY = 7) from the low end,
+-- so views list them as entered without reading doctor_available_days. The collection has no order column; the
+-- rows were inserted in list order, so the physical order of each doctor's first row per day is backfilled.
+ALTER TABLE doctors ADD COLUMN IF NOT EXISTS available_days_order INTEGER NOT NULL DEFAULT 0;
+
+UPDATE doctors d
+SET available_days_order = COALESCE((
+    SELECT CAST(SUM(array_position(
+            ARRAY['MONDAY', 'TUESDAY', 'WEDNESDAY', 'THURSDAY', 'FRIDAY', 'SATURDAY', 'SUNDAY']::varchar[],
+            f.day) << (3 * (CAST(f.n AS integer) - 1))) AS integer)
+    FROM (SELECT first.day, row_number() OVER (ORDER BY first.row_ctid) AS n
+          FROM (SELECT DISTINCT ON (ad.day) ad.day, ad.ctid AS row_ctid
+                FROM doctor_available_days ad
+                WHERE ad.doctor_id = d.id
+                ORDER BY ad.day, ad.ctid) first) f), 0);
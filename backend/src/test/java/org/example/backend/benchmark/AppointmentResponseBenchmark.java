@@ -0,0 +1,81 @@
+package org.example.backend.benchmark;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.backend.dto.AppointmentResponse;
+import org.example.backend.model.*;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Building the response of a booking (AppointmentResponse.of) and writing an appointment page as JSON, with the
+// indented output of spring.jackson.serialization.indent_output and without it.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AppointmentResponseBenchmark {
+    @Param({"10", "100"})
+    private int pageSize;
+
+    private ObjectMapper indentedMapper;
+    private ObjectMapper compactMapper;
+    private Appointment appointment;
+    private Doctor doctor;
+    private Patient patient;
+    private List<AppointmentResponse> page;
+
+    @Setup
+    public void setUp() {
+        // the settings of application.properties
+        indentedMapper = Jackson2ObjectMapperBuilder.json()
+                .indentOutput(true)
+                .serializationInclusion(JsonInclude.Include.NON_NULL)
+                .build();
+        compactMapper = Jackson2ObjectMapperBuilder.json()
+                .serializationInclusion(JsonInclude.Include.NON_NULL)
+                .build();
+        doctor = Doctor.builder()
+                .id(7L)
+                .fullName("Doctor Seven")
+                .email("doctor7@gmail.com")
+                .city(City.GIZA)
+                .street("Pyramids street")
+                .doctorSpeciality(DoctorSpeciality.CARDIOLOGY)
+                .startTime(LocalTime.of(9, 0))
+                .endTime(LocalTime.of(17, 0))
+                .consultationFee(250.0)
+                .build();
+        patient = Patient.builder().id(3L).fullName("Patient Three").email("patient3@gmail.com").build();
+        appointment = Appointment.builder().id(11L).date(LocalDate.now().plusDays(3)).doctor(doctor).patient(patient)
+                .build();
+        page = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            page.add(AppointmentResponse.of(Appointment.builder().id((long) i).date(LocalDate.now().plusDays(i))
+                    .build(), doctor, patient));
+        }
+    }
+
+    @Benchmark
+    public AppointmentResponse buildResponse() {
+        return AppointmentResponse.of(appointment, doctor, patient);
+    }
+
+    @Benchmark
+    public byte[] serializeIndented() throws JsonProcessingException {
+        return indentedMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] serializeCompact() throws JsonProcessingException {
+        return compactMapper.writeValueAsBytes(page);
+    }
+}
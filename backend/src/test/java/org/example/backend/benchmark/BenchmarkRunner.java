@@ -0,0 +1,47 @@
+package org.example.backend.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+// Runs the benchmarks of this package with the GC profiler, so each result also reports gc.alloc.rate.norm (bytes
+// allocated per operation), and saves the results as JSON to compare runs.
+// Arguments: [benchmark regex] [result file]; by default every benchmark except PersistenceBenchmark,
+// MedicalRecordShareBenchmark and MedicalRecordSearchBenchmark, which need a database, written to
+// target/jmh/<timestamp>.json.
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        Path result = Path.of(args.length > 1 ? args[1] : "target/jmh/"
+                + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".json");
+        if (result.getParent() != null) {
+            Files.createDirectories(result.getParent());
+        }
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(result.toString());
+        if (args.length > 0) {
+            options.include(args[0]);
+        } else {
+            options.include(BenchmarkRunner.class.getPackageName() + ".*")
+                    .exclude(PersistenceBenchmark.class.getSimpleName())
+                    .exclude(MedicalRecordShareBenchmark.class.getSimpleName())
+                    .exclude(MedicalRecordSearchBenchmark.class.getSimpleName());
+        }
+        new Runner(options.build()).run();
+        System.out.println("Results written to " + result.toAbsolutePath());
+    }
+}
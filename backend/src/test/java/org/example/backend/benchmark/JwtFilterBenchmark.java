@@ -0,0 +1,62 @@
+package org.example.backend.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletException;
+import org.example.backend.jwt.JwtFilter;
+import org.example.backend.jwt.JwtService;
+import org.example.backend.jwt.PrincipalCache;
+import org.example.backend.model.Patient;
+import org.example.backend.model.Role;
+import org.example.backend.repository.UserRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// One authenticated request through JwtFilter: bearer token lookup, verification, principal cache and security
+// context. The user repository is only reached on the first request, as with a warm principal cache in production.
+// The mock request and response are created per call, like the container does.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtFilterBenchmark {
+    private static final String SECRET = "benchmark-secret-benchmark-secret-benchmark-secret";
+
+    private JwtFilter jwtFilter;
+    private String authorization;
+
+    @Setup
+    public void setUp() {
+        JwtService jwtService = new JwtService(SECRET, 3_600_000, 4096);
+        Patient patient = Patient.builder().id(42L).email("patient42@gmail.com").fullName("Patient Forty Two").build();
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findById(42L)).thenReturn(Optional.of(patient));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        jwtFilter = new JwtFilter(jwtService, userRepository, new PrincipalCache(3_600_000, 10_000, meterRegistry),
+                meterRegistry);
+        authorization = "Bearer " + jwtService.generateToken(patient.getId(), patient.getEmail(), Role.PATIENT);
+    }
+
+    @Benchmark
+    public Object authenticatedRequest() throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/appointments");
+        request.addHeader("Authorization", authorization);
+        try {
+            jwtFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
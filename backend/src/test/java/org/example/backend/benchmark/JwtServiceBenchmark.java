@@ -0,0 +1,77 @@
+package org.example.backend.benchmark;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.example.backend.jwt.JwtService;
+import org.example.backend.model.Patient;
+import org.example.backend.model.Role;
+import org.example.backend.model.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+// Per-request cost of authenticating a JWT: the old path (filter parse + four parses in validateToken,
+// each building a new key and parser) against a single parse with the prebuilt parser, with and without
+// the verified-token cache; plus the cost of issuing a token. JwtFilterBenchmark covers the whole filter.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtServiceBenchmark {
+    private static final String SECRET = "benchmark-secret-benchmark-secret-benchmark-secret";
+
+    private JwtService uncachedJwtService;
+    private JwtService cachedJwtService;
+    private String token;
+    private User user;
+
+    @Setup
+    public void setUp() {
+        uncachedJwtService = new JwtService(SECRET, 3_600_000, 0);
+        cachedJwtService = new JwtService(SECRET, 3_600_000, 4096);
+        user = Patient.builder().id(42L).email("patient42@gmail.com").build();
+        token = cachedJwtService.generateToken(user.getId(), user.getEmail(), Role.PATIENT);
+    }
+
+    // issued on every login
+    @Benchmark
+    public String generate() {
+        return cachedJwtService.generateToken(user.getId(), user.getEmail(), Role.PATIENT);
+    }
+
+    @Benchmark
+    public boolean legacyPerRequest() {
+        Long id = legacyClaims(token).get("id", Long.class);
+        Long claimId = legacyClaims(token).get("id", Long.class);
+        Role role = Role.valueOf(legacyClaims(token).get("role", String.class));
+        String email = legacyClaims(token).getSubject();
+        boolean expired = legacyClaims(token).getExpiration().before(new Date());
+        return Objects.equals(id, claimId) && Objects.equals(claimId, user.getId()) && role == user.getRole()
+                && Objects.equals(email, user.getEmail()) && !expired;
+    }
+
+    @Benchmark
+    public boolean parseOnce() {
+        return uncachedJwtService.verify(token).matches(user);
+    }
+
+    @Benchmark
+    public boolean parseOnceCached() {
+        return cachedJwtService.verify(token).matches(user);
+    }
+
+    // what JwtService.extractAllClaims did before: a new HMAC key and parser for every claim read
+    private static Claims legacyClaims(String token) {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+}
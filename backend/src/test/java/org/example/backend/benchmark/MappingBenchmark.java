@@ -0,0 +1,89 @@
+package org.example.backend.benchmark;
+
+import org.example.backend.dto.DoctorMainView;
+import org.example.backend.dto.DoctorRegisterRequest;
+import org.example.backend.dto.UserMainView;
+import org.example.backend.mapper.UserMapper;
+import org.example.backend.model.*;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Reflective ModelMapper against the hand-written UserMapper for the conversions on the search and register paths.
+// Run with "-prof gc" to get the allocation per mapped object (gc.alloc.rate.norm).
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MappingBenchmark {
+    private ModelMapper modelMapper;
+    private UserMapper userMapper;
+    private Doctor doctor;
+    private Patient patient;
+    private DoctorRegisterRequest doctorRequest;
+
+    @Setup
+    public void setUp() {
+        modelMapper = new ModelMapper();
+        userMapper = new UserMapper();
+        doctor = Doctor.builder()
+                .id(7L)
+                .fullName("Doctor Seven")
+                .email("doctor7@gmail.com")
+                .password("hashed-password")
+                .phoneNumber("01112345678")
+                .city(City.GIZA)
+                .street("Pyramids street")
+                .doctorSpeciality(DoctorSpeciality.CARDIOLOGY)
+                .info("Cardiologist with twenty years of experience")
+                .patientNumber(20)
+                .startTime(LocalTime.of(9, 0))
+                .endTime(LocalTime.of(17, 0))
+                .consultationFee(250.0)
+                .availableDays(List.of(Day.MONDAY, Day.WEDNESDAY, Day.SATURDAY))
+                .build();
+        patient = Patient.builder()
+                .id(3L)
+                .fullName("Patient Three")
+                .email("patient3@gmail.com")
+                .password("hashed-password")
+                .phoneNumber("01012345678")
+                .build();
+        doctorRequest = modelMapper.map(doctor, DoctorRegisterRequest.class);
+    }
+
+    @Benchmark
+    public DoctorMainView doctorViewModelMapper() {
+        return modelMapper.map(doctor, DoctorMainView.class);
+    }
+
+    @Benchmark
+    public DoctorMainView doctorViewUserMapper() {
+        return userMapper.toDoctorMainView(doctor);
+    }
+
+    @Benchmark
+    public UserMainView patientViewModelMapper() {
+        return modelMapper.map(patient, UserMainView.class);
+    }
+
+    @Benchmark
+    public UserMainView patientViewUserMapper() {
+        return userMapper.toUserMainView(patient);
+    }
+
+    @Benchmark
+    public Doctor doctorEntityModelMapper() {
+        return modelMapper.map(doctorRequest, Doctor.class);
+    }
+
+    @Benchmark
+    public Doctor doctorEntityUserMapper() {
+        return userMapper.toUser(doctorRequest, Doctor.class);
+    }
+}
@@ -0,0 +1,118 @@
+package org.example.backend.benchmark;
+
+import org.example.backend.BackendApplication;
+import org.example.backend.dto.CursorPage;
+import org.example.backend.dto.MedicalRecordSearchHit;
+import org.example.backend.model.*;
+import org.example.backend.repository.UserRepository;
+import org.example.backend.service.MedicalRecordService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+// First slice of a full-text search over the records shared with a doctor, in milliseconds per search, with 1M
+// medical records in the table and 2k of them shared with the doctor. Needs the database of the default profile like
+// PersistenceBenchmark; the records are inserted on the first run (a few minutes) and kept for later runs.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MedicalRecordSearchBenchmark {
+    private static final int RECORDS = 1_000_000;
+    // every 500th record is shared with the reader
+    private static final int SHARED_EVERY = 500;
+
+    // a frequent phrase, frequent words, and a word found in about 0.1% of the records
+    @Param({"\"lower back pain\" ibuprofen", "chest pain", "fever -amoxicillin", "appendicitis"})
+    private String query;
+
+    private ConfigurableApplicationContext context;
+    private MedicalRecordService medicalRecordService;
+    private User reader;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(BackendApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.jpa.show-sql=false", "seed.enabled=false")
+                .run();
+        medicalRecordService = context.getBean(MedicalRecordService.class);
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        User patient = userRepository.findByEmailIgnoreCase("benchmark.search.patient@gmail.com")
+                .orElseGet(() -> userRepository.save(Patient.builder()
+                        .fullName("Benchmark Search Patient")
+                        .email("benchmark.search.patient@gmail.com")
+                        .password("password")
+                        .phoneNumber("01599999992")
+                        .build()));
+        User author = doctor(userRepository, "benchmark.search.author", "01599999993");
+        reader = doctor(userRepository, "benchmark.search.reader", "01599999994");
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        Integer existing = jdbcTemplate.queryForObject("SELECT count(*) FROM medical_records WHERE patient_id = ?",
+                Integer.class, patient.getId());
+        if (existing < RECORDS) {
+            jdbcTemplate.update("""
+                    INSERT INTO medical_records (content, date, doctor_id, patient_id)
+                    SELECT 'Patient reports '
+                           || (ARRAY['headache', 'chest pain', 'fever', 'persistent cough', 'fatigue', 'nausea',
+                                     'dizziness', 'lower back pain', 'skin rash', 'insomnia']
+                              )[1 + floor(random() * 10)::int]
+                           || ' for ' || (g % 14) || ' days; prescribed '
+                           || (ARRAY['ibuprofen', 'paracetamol', 'amoxicillin', 'omeprazole', 'metformin', 'lisinopril',
+                                     'atorvastatin'])[1 + floor(random() * 7)::int]
+                           || '. Blood pressure ' || (110 + g % 40) || '/' || (70 + g % 20) || ', follow-up in '
+                           || (1 + g % 6) || ' weeks.'
+                           || CASE WHEN random() < 0.001 THEN ' Suspected appendicitis, referred to surgery.'
+                                   ELSE '' END,
+                           CURRENT_DATE - g % 3650, ?, ?
+                    FROM generate_series(1, ?) g""", author.getId(), patient.getId(), RECORDS - existing);
+            jdbcTemplate.update("DELETE FROM doctor_medical_records WHERE doctor_id = ?", reader.getId());
+            jdbcTemplate.update("""
+                    INSERT INTO doctor_medical_records (doctor_id, medical_record_id)
+                    SELECT ?, id FROM (SELECT id, row_number() OVER (ORDER BY id) AS n
+                                       FROM medical_records WHERE patient_id = ?) numbered
+                    WHERE n % ? = 0""", reader.getId(), patient.getId(), SHARED_EVERY);
+            jdbcTemplate.execute("VACUUM ANALYZE medical_records");
+            jdbcTemplate.execute("VACUUM ANALYZE doctor_medical_records");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public CursorPage<MedicalRecordSearchHit> searchSharedRecords() {
+        return medicalRecordService.searchRecords(reader, query, null, 20);
+    }
+
+    private static User doctor(UserRepository userRepository, String name, String phoneNumber) {
+        return userRepository.findByEmailIgnoreCase(name + "@gmail.com")
+                .orElseGet(() -> userRepository.save(Doctor.builder()
+                        .fullName("Doctor " + name)
+                        .email(name + "@gmail.com")
+                        .password("password")
+                        .phoneNumber(phoneNumber)
+                        .city(City.CAIRO)
+                        .street("Benchmark street")
+                        .doctorSpeciality(DoctorSpeciality.CARDIOLOGY)
+                        .info("Doctor used by the medical record search benchmark")
+                        .patientNumber(10)
+                        .startTime(LocalTime.of(9, 0))
+                        .endTime(LocalTime.of(17, 0))
+                        .consultationFee(100.0)
+                        .availableDays(new ArrayList<>(Arrays.asList(Day.values())))
+                        .build()));
+    }
+}
@@ -0,0 +1,103 @@
+package org.example.backend.benchmark;
+
+import org.example.backend.BackendApplication;
+import org.example.backend.model.*;
+import org.example.backend.repository.UserRepository;
+import org.example.backend.service.MedicalRecordService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Sharing all of a patient's 10k medical records with a doctor (one INSERT ... SELECT), reported as milliseconds per
+// share. Needs the database of the default profile like PersistenceBenchmark; the records are inserted once, and every
+// share is rolled back, so each invocation inserts all the links again.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MedicalRecordShareBenchmark {
+    private static final int RECORDS = 10_000;
+
+    private ConfigurableApplicationContext context;
+    private TransactionTemplate transactionTemplate;
+    private MedicalRecordService medicalRecordService;
+    private Patient patient;
+    private Long readerId;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(BackendApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.jpa.show-sql=false", "seed.enabled=false")
+                .run();
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        medicalRecordService = context.getBean(MedicalRecordService.class);
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        patient = (Patient) userRepository.findByEmailIgnoreCase("benchmark.share.patient@gmail.com")
+                .orElseGet(() -> userRepository.save(Patient.builder()
+                        .fullName("Benchmark Share Patient")
+                        .email("benchmark.share.patient@gmail.com")
+                        .password("password")
+                        .phoneNumber("01599999995")
+                        .build()));
+        Long authorId = doctor(userRepository, "benchmark.share.author", "01599999996").getId();
+        readerId = doctor(userRepository, "benchmark.share.reader", "01599999997").getId();
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        Integer existing = jdbcTemplate.queryForObject("SELECT count(*) FROM medical_records WHERE patient_id = ?",
+                Integer.class, patient.getId());
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = existing; i < RECORDS; i++) {
+            rows.add(new Object[]{"Follow-up visit number " + i + ", vitals within normal range.",
+                    Date.valueOf(LocalDate.now().minusDays(i % 3650)), authorId, patient.getId()});
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO medical_records (content, date, doctor_id, patient_id) VALUES (?, ?, ?, ?)", rows);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int shareAllRecords() {
+        return transactionTemplate.execute(status -> {
+            int shared = medicalRecordService.shareAllRecordsWithDoctor(patient, readerId);
+            status.setRollbackOnly();
+            return shared;
+        });
+    }
+
+    private static User doctor(UserRepository userRepository, String name, String phoneNumber) {
+        return userRepository.findByEmailIgnoreCase(name + "@gmail.com")
+                .orElseGet(() -> userRepository.save(Doctor.builder()
+                        .fullName("Doctor " + name)
+                        .email(name + "@gmail.com")
+                        .password("password")
+                        .phoneNumber(phoneNumber)
+                        .city(City.CAIRO)
+                        .street("Benchmark street")
+                        .doctorSpeciality(DoctorSpeciality.CARDIOLOGY)
+                        .info("Doctor used by the medical record share benchmark")
+                        .patientNumber(10)
+                        .startTime(LocalTime.of(9, 0))
+                        .endTime(LocalTime.of(17, 0))
+                        .consultationFee(100.0)
+                        .availableDays(new ArrayList<>(Arrays.asList(Day.values())))
+                        .build()));
+    }
+}
@@ -0,0 +1,128 @@
+package org.example.backend.benchmark;
+
+import jakarta.persistence.EntityManager;
+import org.example.backend.BackendApplication;
+import org.example.backend.model.*;
+import org.example.backend.repository.AppointmentRepository;
+import org.example.backend.repository.MedicalRecordRepository;
+import org.example.backend.repository.UserRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Bulk inserts of appointments and medical records through JPA (saveAll + flush), reported as rows per second.
+// Needs the database of the default profile (DB_URL, DB_USERNAME, DB_PASSWORD); every invocation is rolled back,
+// so the tables do not grow.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PersistenceBenchmark {
+    private static final int ROWS = 1000;
+
+    private ConfigurableApplicationContext context;
+    private TransactionTemplate transactionTemplate;
+    private EntityManager entityManager;
+    private AppointmentRepository appointmentRepository;
+    private MedicalRecordRepository medicalRecordRepository;
+    private Long patientId;
+    private Long doctorId;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(BackendApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.jpa.show-sql=false", "seed.enabled=false")
+                .run();
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        entityManager = context.getBean(EntityManager.class);
+        appointmentRepository = context.getBean(AppointmentRepository.class);
+        medicalRecordRepository = context.getBean(MedicalRecordRepository.class);
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        patientId = userRepository.findByEmailIgnoreCase("benchmark.patient@gmail.com")
+                .orElseGet(() -> userRepository.save(Patient.builder()
+                        .fullName("Benchmark Patient")
+                        .email("benchmark.patient@gmail.com")
+                        .password("password")
+                        .phoneNumber("01599999998")
+                        .build()))
+                .getId();
+        doctorId = userRepository.findByEmailIgnoreCase("benchmark.doctor@gmail.com")
+                .orElseGet(() -> userRepository.save(Doctor.builder()
+                        .fullName("Benchmark Doctor")
+                        .email("benchmark.doctor@gmail.com")
+                        .password("password")
+                        .phoneNumber("01599999999")
+                        .city(City.CAIRO)
+                        .street("Benchmark street")
+                        .doctorSpeciality(DoctorSpeciality.CARDIOLOGY)
+                        .info("Doctor used by the persistence benchmark")
+                        .patientNumber(ROWS)
+                        .startTime(LocalTime.of(9, 0))
+                        .endTime(LocalTime.of(17, 0))
+                        .consultationFee(100.0)
+                        .availableDays(new ArrayList<>(Arrays.asList(Day.values())))
+                        .build()))
+                .getId();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void insertAppointments() {
+        rolledBack(() -> {
+            Patient patient = entityManager.getReference(Patient.class, patientId);
+            Doctor doctor = entityManager.getReference(Doctor.class, doctorId);
+            LocalDate today = LocalDate.now();
+            List<Appointment> appointments = new ArrayList<>(ROWS);
+            for (int i = 0; i < ROWS; i++) {
+                appointments.add(Appointment.builder().date(today.plusDays(i)).patient(patient).doctor(doctor).build());
+            }
+            appointmentRepository.saveAll(appointments);
+        });
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void insertMedicalRecords() {
+        rolledBack(() -> {
+            Patient patient = entityManager.getReference(Patient.class, patientId);
+            Doctor doctor = entityManager.getReference(Doctor.class, doctorId);
+            LocalDate today = LocalDate.now();
+            List<MedicalRecord> records = new ArrayList<>(ROWS);
+            for (int i = 0; i < ROWS; i++) {
+                records.add(MedicalRecord.builder()
+                        .content("Follow-up visit " + i + ": blood pressure stable, continue the current treatment")
+                        .date(today.minusDays(i))
+                        .patient(patient)
+                        .doctor(doctor)
+                        .build());
+            }
+            medicalRecordRepository.saveAll(records);
+        });
+    }
+
+    // flushes so every INSERT reaches the database, then rolls back
+    private void rolledBack(Runnable inserts) {
+        transactionTemplate.executeWithoutResult(status -> {
+            inserts.run();
+            entityManager.flush();
+            status.setRollbackOnly();
+        });
+    }
+}
@@ -0,0 +1,97 @@
+package org.example.backend.benchmark;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.example.backend.dto.DoctorMainView;
+import org.example.backend.dto.DoctorRegisterRequest;
+import org.example.backend.model.City;
+import org.example.backend.model.Day;
+import org.example.backend.model.DoctorSpeciality;
+import org.example.backend.validator.FieldsComparison;
+import org.example.backend.validator.FieldsComparisonValidator;
+import org.example.backend.validator.NoDuplicatesValidator;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Field;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// The custom constraint validators on their own, and the whole Bean Validation pass over a doctor registration
+// (the request body validated by @Valid on /register/doctor) that includes them. reflectiveFieldsComparison is the
+// former FieldsComparisonValidator, which looked both fields up and made them accessible on every call; it is kept as
+// the baseline for the cached accessors of FieldReader.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidationBenchmark {
+    private ValidatorFactory validatorFactory;
+    private Validator validator;
+    private FieldsComparisonValidator fieldsComparisonValidator;
+    private NoDuplicatesValidator noDuplicatesValidator;
+    private DoctorRegisterRequest request;
+    private DoctorMainView view;
+
+    @Setup
+    public void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+        fieldsComparisonValidator = new FieldsComparisonValidator();
+        fieldsComparisonValidator.initialize(DoctorRegisterRequest.class.getAnnotation(FieldsComparison.class));
+        noDuplicatesValidator = new NoDuplicatesValidator();
+        request = new DoctorRegisterRequest(City.GIZA, "Pyramids street", DoctorSpeciality.CARDIOLOGY,
+                "Cardiologist with twenty years of experience", 20, LocalTime.of(9, 0), LocalTime.of(17, 0), 250.0,
+                List.of(Day.MONDAY, Day.WEDNESDAY, Day.SATURDAY));
+        request.setFullName("Doctor Seven");
+        request.setEmail("doctor7@gmail.com");
+        request.setPassword("password");
+        request.setPhoneNumber("01112345678");
+        view = new DoctorMainView();
+        view.setStartTime(request.getStartTime());
+        view.setEndTime(request.getEndTime());
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public boolean fieldsComparison() {
+        return fieldsComparisonValidator.isValid(request, null);
+    }
+
+    // fields declared on the superclass, as for the doctor profile responses
+    @Benchmark
+    public boolean fieldsComparisonSubclass() {
+        return fieldsComparisonValidator.isValid(view, null);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public boolean reflectiveFieldsComparison() throws ReflectiveOperationException {
+        Field startField = request.getClass().getDeclaredField("startTime");
+        Field endField = request.getClass().getDeclaredField("endTime");
+        startField.setAccessible(true);
+        endField.setAccessible(true);
+        Object startValue = startField.get(request);
+        Object endValue = endField.get(request);
+        return ((Comparable<Object>) startValue).compareTo(endValue) < 0;
+    }
+
+    @Benchmark
+    public boolean noDuplicates() {
+        return noDuplicatesValidator.isValid(request.getAvailableDays(), null);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<DoctorRegisterRequest>> doctorRegistration() {
+        return validator.validate(request);
+    }
+}
@@ -0,0 +1,54 @@
+package org.example.backend.config;
+
+import org.example.backend.PostgresTestConfiguration;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Actuator answers on the management port only; the API port neither serves it nor lets it through unauthenticated
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@TestPropertySource(properties = "management.server.port=0")
+// tests disable metrics export by default, which would leave /actuator/prometheus unmapped
+@AutoConfigureObservability
+@ActiveProfiles("test")
+@Import(PostgresTestConfiguration.class)
+@Testcontainers(disabledWithoutDocker = true)
+class ActuatorExposureTests {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+    @LocalManagementPort
+    private int managementPort;
+
+    @Test
+    void servesPrometheusWithoutATokenOnTheManagementPort() {
+        ResponseEntity<String> scrape = restTemplate.getForEntity(
+                "http://127.0.0.1:" + managementPort + "/actuator/prometheus", String.class);
+
+        assertThat(scrape.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(scrape.getBody()).contains("jvm_memory_used_bytes");
+        // answered without a token; the status itself depends on Redis, which these tests do not start
+        assertThat(restTemplate.getForEntity("http://127.0.0.1:" + managementPort + "/actuator/health", String.class)
+                .getBody()).contains("\"status\"");
+    }
+
+    @Test
+    void keepsActuatorOffTheApiPort() {
+        for (String endpoint : new String[]{"/actuator/prometheus", "/actuator/health", "/actuator/metrics"}) {
+            assertThat(restTemplate.getForEntity(endpoint, String.class).getStatusCode())
+                    .as(endpoint)
+                    .isNotEqualTo(HttpStatus.OK);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package org.example.backend.config;
+
+import org.example.backend.exception.ServiceBusyException;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BoundedPasswordEncoderTests {
+
+    @Test
+    void rejectsCallersBeyondThreadsAndQueue() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        PasswordEncoder slow = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                return "hash";
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return true;
+            }
+        };
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1));
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(slow, executor, Duration.ofSeconds(2));
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> running = callers.submit(() -> encoder.encode("a"));
+            started.await();
+            Future<String> queued = callers.submit(() -> encoder.encode("b"));
+            while (executor.getQueue().isEmpty()) {
+                Thread.onSpinWait();
+            }
+
+            assertThatThrownBy(() -> encoder.encode("c"))
+                    .isInstanceOf(ServiceBusyException.class)
+                    .extracting(ex -> ((ServiceBusyException) ex).getRetryAfter())
+                    .isEqualTo(Duration.ofSeconds(2));
+
+            release.countDown();
+            assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("hash");
+            assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("hash");
+        } finally {
+            callers.shutdownNow();
+            encoder.close();
+        }
+    }
+
+    @Test
+    void legacyHashesMatchAndAreUpgraded() {
+        PasswordEncoder encoder = PasswordConfiguration.delegatingEncoder(PasswordConfiguration.MIN_COST);
+        String legacy = new BCryptPasswordEncoder(4).encode("password");
+
+        assertThat(encoder.matches("password", legacy)).isTrue();
+        assertThat(encoder.upgradeEncoding(legacy)).isTrue();
+
+        String current = encoder.encode("password");
+        assertThat(current).startsWith("{bcrypt}");
+        assertThat(encoder.matches("password", current)).isTrue();
+        assertThat(encoder.upgradeEncoding(current)).isFalse();
+    }
+}
@@ -0,0 +1,79 @@
+package org.example.backend.config;
+
+import org.example.backend.PostgresTestConfiguration;
+import org.example.backend.dto.DoctorSearchRequest;
+import org.example.backend.model.City;
+import org.example.backend.model.DoctorSpeciality;
+import org.example.backend.service.PatientService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {"seed.enabled=true", "seed.patients=200", "seed.doctors=50",
+        "seed.appointments=2000", "seed.medical-records=500"})
+@ActiveProfiles("test")
+@Import(PostgresTestConfiguration.class)
+@Testcontainers(disabledWithoutDocker = true)
+class DataSeederTests {
+
+    @Autowired
+    private DataSeeder dataSeeder;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    @Autowired
+    private PatientService patientService;
+
+    @Test
+    void seedsConsistentDataInTheBackground() throws Exception {
+        dataSeeder.seeded().get(60, TimeUnit.SECONDS);
+
+        assertThat(count("SELECT count(*) FROM patients")).isEqualTo(200);
+        assertThat(count("SELECT count(*) FROM doctors")).isEqualTo(50);
+        assertThat(count("SELECT count(*) FROM appointments")).isPositive().isLessThanOrEqualTo(2000);
+        assertThat(count("SELECT count(*) FROM medical_records")).isEqualTo(500);
+        String hash = jdbcTemplate.queryForObject("SELECT password FROM users WHERE email = 'patient0@gmail.com'",
+                String.class);
+        assertThat(passwordEncoder.matches("password", hash)).isTrue();
+
+        // the day list matches the mask, and appointments fall on working days within capacity
+        assertThat(count("""
+                SELECT count(*) FROM doctors d
+                WHERE d.available_days_mask <> (
+                    SELECT COALESCE(SUM(DISTINCT CASE a.day WHEN 'MONDAY' THEN 1 WHEN 'TUESDAY' THEN 2
+                        WHEN 'WEDNESDAY' THEN 4 WHEN 'THURSDAY' THEN 8 WHEN 'FRIDAY' THEN 16
+                        WHEN 'SATURDAY' THEN 32 ELSE 64 END), 0)
+                    FROM doctor_available_days a WHERE a.doctor_id = d.id)""")).isZero();
+        assertThat(count("""
+                SELECT count(*) FROM appointments a JOIN doctors d ON d.id = a.doctor_id
+                WHERE d.available_days_mask & (1 << (EXTRACT(ISODOW FROM a.date)::int - 1)) = 0""")).isZero();
+        assertThat(count("""
+                SELECT count(*) FROM (
+                    SELECT a.doctor_id, a.date FROM appointments a JOIN doctors d ON d.id = a.doctor_id
+                    GROUP BY a.doctor_id, a.date, d.patient_number HAVING COUNT(*) > d.patient_number) over""")).isZero();
+        // every upcoming doctor day has its slot counter
+        assertThat(count("""
+                SELECT count(*) FROM (SELECT doctor_id, date, COUNT(*) AS booked FROM appointments
+                                      WHERE date >= CURRENT_DATE GROUP BY doctor_id, date) a
+                LEFT JOIN doctor_day_slots s ON s.doctor_id = a.doctor_id AND s.date = a.date
+                WHERE s.booked IS DISTINCT FROM a.booked""")).isZero();
+
+        // DoctorsImportedEvent reloads the directory, so searches see the seeded doctors
+        assertThat(patientService.doctorsSearch(new DoctorSearchRequest(City.ALL, DoctorSpeciality.ALL), 0, 100))
+                .hasSize(50);
+    }
+
+    private long count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+}
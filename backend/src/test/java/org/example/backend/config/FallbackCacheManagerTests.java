@@ -0,0 +1,124 @@
+package org.example.backend.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FallbackCacheManagerTests {
+
+    // in-memory stand-in for the Redis tier that can be switched off
+    private static class SwitchableCacheManager implements CacheManager {
+        final ConcurrentMapCache cache = new ConcurrentMapCache("doctors") {
+            @Override
+            public ValueWrapper get(Object key) {
+                failIfDown();
+                return super.get(key);
+            }
+
+            @Override
+            public void put(Object key, Object value) {
+                failIfDown();
+                super.put(key, value);
+            }
+
+            @Override
+            public void evict(Object key) {
+                failIfDown();
+                super.evict(key);
+            }
+
+            @Override
+            public void clear() {
+                failIfDown();
+                super.clear();
+            }
+        };
+        boolean down;
+
+        private void failIfDown() {
+            if (down) {
+                throw new RedisConnectionFailureException("Redis is down");
+            }
+        }
+
+        @Override
+        public Cache getCache(String name) {
+            return cache;
+        }
+
+        @Override
+        public Collection<String> getCacheNames() {
+            return List.of("doctors");
+        }
+    }
+
+    private SwitchableCacheManager redis;
+    private FallbackCacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        redis = new SwitchableCacheManager();
+        cacheManager = new FallbackCacheManager(redis, new ConcurrentMapCacheManager(), Duration.ZERO);
+    }
+
+    @Test
+    void usesPrimaryWhileItIsAvailable() {
+        cacheManager.getCache("doctors").put(1L, "doctor");
+
+        assertThat(redis.cache.get(1L)).isNotNull();
+        assertThat(cacheManager.getCache("doctors").get(1L).get()).isEqualTo("doctor");
+    }
+
+    @Test
+    void fallsBackToLocalTierWhenPrimaryFails() {
+        redis.down = true;
+        Cache cache = cacheManager.getCache("doctors");
+
+        assertThat(cache.get(1L)).isNull();
+        cache.put(1L, "doctor");
+
+        assertThat(cache.get(1L).get()).isEqualTo("doctor");
+    }
+
+    @Test
+    void evictionMissedDuringOutageClearsPrimaryOnRecovery() {
+        Cache cache = cacheManager.getCache("doctors");
+        cache.put(1L, "old doctor");
+
+        redis.down = true;
+        cache.evict(1L);
+        redis.down = false;
+
+        assertThat(cache.get(1L)).isNull();
+    }
+
+    // an eviction inside a transaction waits for the commit, so a read before it cannot re-cache the old value
+    @Test
+    void evictsAfterTheTransactionCommits() {
+        Cache cache = cacheManager.getCache("doctors");
+        cache.put(1L, "old doctor");
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.evict(1L);
+            assertThat(redis.cache.get(1L)).isNotNull();
+
+            TransactionSynchronizationUtils.triggerAfterCommit();
+            assertThat(redis.cache.get(1L)).isNull();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package org.example.backend.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.backend.PostgresTestConfiguration;
+import org.example.backend.jwt.JwtService;
+import org.example.backend.model.*;
+import org.example.backend.repository.MedicalRecordRepository;
+import org.example.backend.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(PostgresTestConfiguration.class)
+@Testcontainers(disabledWithoutDocker = true)
+class MedicalRecordControllerTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private JwtService jwtService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private MedicalRecordRepository medicalRecordRepository;
+
+    // The body is written on an async dispatch, which carries no JWT authentication and must still be allowed
+    @Test
+    void streamsTheTimelineAsOneCompactLinePerRecord() throws Exception {
+        Patient patient = userRepository.save(Patient.builder()
+                .fullName("Patient ndjson.patient")
+                .email("ndjson.patient@gmail.com")
+                .password("password")
+                .phoneNumber("01260000000")
+                .build());
+        Doctor doctor = userRepository.save(doctor());
+        List<Long> ids = new ArrayList<>();
+        for (int daysAgo = 0; daysAgo < 3; daysAgo++) {
+            ids.add(medicalRecordRepository.save(MedicalRecord.builder()
+                    .content("Physiotherapy session, knee mobility improving.\nNext session in a week.")
+                    .date(LocalDate.now().minusDays(daysAgo))
+                    .doctor(doctor)
+                    .patient(patient)
+                    .build()).getId());
+        }
+        String token = jwtService.generateToken(patient.getId(), patient.getEmail(), Role.PATIENT);
+
+        MvcResult started = mockMvc.perform(get("/medical-records/patient/me/timeline")
+                        .header("Authorization", "Bearer " + token)
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult result = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn();
+
+        String body = result.getResponse().getContentAsString();
+        assertThat(body).endsWith("\n");
+        List<String> lines = body.lines().toList();
+        assertThat(lines).hasSize(3).allSatisfy(line -> assertThat(line).startsWith("{\"").endsWith("}"));
+        List<Long> streamed = new ArrayList<>();
+        for (String line : lines) {
+            JsonNode record = objectMapper.readTree(line);
+            assertThat(record.get("content").asText()).contains("\n");
+            streamed.add(record.get("id").asLong());
+        }
+        assertThat(streamed).isEqualTo(ids);
+    }
+
+    private static Doctor doctor() {
+        return Doctor.builder()
+                .fullName("Doctor ndjson.author")
+                .email("ndjson.author@gmail.com")
+                .password("password")
+                .phoneNumber("01260000001")
+                .city(City.CAIRO)
+                .street("Test street")
+                .doctorSpeciality(DoctorSpeciality.ORTHOPEDICS)
+                .info("Doctor used by the medical record controller tests")
+                .patientNumber(10)
+                .startTime(LocalTime.of(9, 0))
+                .endTime(LocalTime.of(17, 0))
+                .consultationFee(100.0)
+                .availableDays(new ArrayList<>(List.of(Day.values())))
+                .build();
+    }
+}
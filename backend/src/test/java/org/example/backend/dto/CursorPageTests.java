@@ -0,0 +1,41 @@
+package org.example.backend.dto;
+
+import org.example.backend.exception.ErrorMessage;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CursorPageTests {
+
+    @Test
+    void cursorRoundTripsKeysWithSeparatorInLastPart() {
+        String cursor = CursorPage.encode("CARDIOLOGY", 42L, "Name | With Separator");
+
+        String[] keys = CursorPage.decode(cursor, 3, parts -> parts);
+
+        assertThat(keys).containsExactly("CARDIOLOGY", "42", "Name | With Separator");
+    }
+
+    @Test
+    void extraRowProducesNextCursorFromLastReturnedItem() {
+        CursorPage<Integer> page = CursorPage.of(List.of(1, 2, 3), 2, last -> "after-" + last);
+
+        assertThat(page.getContent()).containsExactly(1, 2);
+        assertThat(page.getNextCursor()).isEqualTo("after-2");
+        assertThat(CursorPage.of(List.of(1, 2), 2, last -> "after-" + last).getNextCursor()).isNull();
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        assertThatThrownBy(() -> CursorPage.decode("not base64!", 2, parts -> parts))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage(ErrorMessage.INVALID_CURSOR.getMessage());
+        String wrongShape = CursorPage.encode("2024-01-01");
+        assertThatThrownBy(() -> CursorPage.decode(wrongShape, 2, parts -> Long.parseLong(parts[1])))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage(ErrorMessage.INVALID_CURSOR.getMessage());
+    }
+}
@@ -0,0 +1,93 @@
+package org.example.backend.jwt;
+
+import jakarta.persistence.EntityNotFoundException;
+import org.example.backend.PostgresTestConfiguration;
+import org.example.backend.model.Patient;
+import org.example.backend.model.User;
+import org.example.backend.repository.UserRepository;
+import org.example.backend.service.AuthService;
+import org.example.backend.service.PatientService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// A request authenticating while a change to its user is not committed yet loads (and caches) the old row; the
+// eviction after the commit must drop it again
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(PostgresTestConfiguration.class)
+@Testcontainers(disabledWithoutDocker = true)
+class PrincipalCacheTests {
+
+    @Autowired
+    private PrincipalCache principalCache;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private AuthService authService;
+    @Autowired
+    private PatientService patientService;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void deletedAccountStopsAuthenticatingOnceTheDeleteCommits() {
+        Patient patient = userRepository.save(patient(0));
+        Date issuedAt = new Date();
+
+        transactionTemplate.executeWithoutResult(_ -> {
+            authService.deleteAccount(patient);
+            assertThat(authenticateConcurrently(patient.getId(), issuedAt).getEmail()).isEqualTo(patient.getEmail());
+        });
+
+        assertThatThrownBy(() -> authenticate(patient.getId(), issuedAt)).isInstanceOf(EntityNotFoundException.class);
+    }
+
+    @Test
+    void changedEmailIsReloadedOnceTheUpdateCommits() {
+        Patient patient = userRepository.save(patient(1));
+        Date issuedAt = new Date();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            try {
+                patientService.updatePatient(patient.getId(), Map.of("email", "principal.renamed@gmail.com"));
+            } catch (Exception ex) {
+                status.setRollbackOnly();
+                throw new IllegalStateException(ex);
+            }
+            assertThat(authenticateConcurrently(patient.getId(), issuedAt).getEmail()).isEqualTo(patient.getEmail());
+        });
+
+        assertThat(authenticate(patient.getId(), issuedAt).getEmail()).isEqualTo("principal.renamed@gmail.com");
+    }
+
+    // like JwtFilter, from another request (thread), so outside the uncommitted transaction
+    private User authenticateConcurrently(Long id, Date issuedAt) {
+        return CompletableFuture.supplyAsync(() -> authenticate(id, issuedAt)).join();
+    }
+
+    private User authenticate(Long id, Date issuedAt) {
+        return principalCache.get(id, issuedAt, userId -> userRepository.findById(userId).orElseThrow(
+                () -> new EntityNotFoundException("user not found")));
+    }
+
+    private static Patient patient(int number) {
+        return Patient.builder()
+                .fullName("Principal Patient " + number)
+                .email("principal.patient" + number + "@gmail.com")
+                .password("password")
+                .phoneNumber("0127700000" + number)
+                .build();
+    }
+}
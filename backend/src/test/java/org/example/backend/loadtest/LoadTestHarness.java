@@ -0,0 +1,237 @@
+package org.example.backend.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.backend.BackendApplication;
+import org.example.backend.config.DataSeeder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Closed-loop load test for the platform-thread and virtual-thread modes: every client logs in as the same patient
+// and sends its next request as soon as the previous response arrived, for a fixed duration per endpoint.
+//
+// Without --base-url the application is started in-process twice (default profile, then the "virtual" profile)
+// against the database configured in the environment, and the two runs are printed side by side. With --base-url
+// only that server is measured (start it yourself with or without SPRING_PROFILES_ACTIVE=virtual), which keeps the
+// client from competing with the server for CPU.
+//
+// Options: --clients=1000 --duration=PT30S --warmup=PT10S --email=patient0@gmail.com --password=password
+//          --base-url=http://localhost:8080/api --label=external
+public class LoadTestHarness {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        int clients = Integer.parseInt(options.getOrDefault("clients", "1000"));
+        Duration duration = Duration.parse(options.getOrDefault("duration", "PT30S"));
+        Duration warmup = Duration.parse(options.getOrDefault("warmup", "PT10S"));
+        String email = options.getOrDefault("email", "patient0@gmail.com");
+        String password = options.getOrDefault("password", "password");
+
+        List<Result> results = new ArrayList<>();
+        if (options.containsKey("base-url")) {
+            String label = options.getOrDefault("label", "external");
+            results.addAll(runScenarios(label, options.get("base-url"), email, password, clients, warmup, duration));
+        } else {
+            for (Mode mode : Mode.values()) {
+                try (ConfigurableApplicationContext context = start(mode)) {
+                    results.addAll(runScenarios(mode.label, baseUrl(context), email, password,
+                            clients, warmup, duration));
+                }
+            }
+        }
+
+        System.out.printf("%n%-10s %-16s %10s %8s %12s %10s %10s%n",
+                "mode", "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms");
+        for (Result result : results) {
+            System.out.printf("%-10s %-16s %10d %8d %12.1f %10.1f %10.1f%n", result.mode(), result.endpoint(),
+                    result.requests(), result.errors(), result.throughput(),
+                    result.percentileMillis(0.50), result.percentileMillis(0.99));
+        }
+    }
+
+    private static List<Result> runScenarios(String mode, String baseUrl, String email, String password,
+                                             int clients, Duration warmup, Duration duration) throws Exception {
+        // the client side runs on virtual threads as well, so 1k+ blocking senders cost almost nothing
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient client = HttpClient.newBuilder()
+                     .version(HttpClient.Version.HTTP_1_1)
+                     .connectTimeout(Duration.ofSeconds(10))
+                     .executor(executor)
+                     .build()) {
+            String token = login(client, baseUrl, email, password);
+            Map<String, HttpRequest> scenarios = new LinkedHashMap<>();
+            scenarios.put("/appointments", authorized(baseUrl + "/appointments?page=0&size=10", token).GET().build());
+            scenarios.put("/doctors-search", authorized(baseUrl + "/patient/doctors-search?page=0&size=10", token)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"city\":\"ALL\",\"doctorSpeciality\":\"ALL\"}"))
+                    .build());
+
+            List<Result> results = new ArrayList<>();
+            for (Map.Entry<String, HttpRequest> scenario : scenarios.entrySet()) {
+                System.out.printf("%s %s: %d clients, warm-up %s, measuring %s%n",
+                        mode, scenario.getKey(), clients, warmup, duration);
+                drive(client, executor, scenario.getValue(), clients, warmup);
+                Samples samples = drive(client, executor, scenario.getValue(), clients, duration);
+                results.add(new Result(mode, scenario.getKey(), samples.latencies(), samples.errors(),
+                        samples.elapsed()));
+            }
+            return results;
+        }
+    }
+
+    // runs the clients until the deadline and merges their latencies (successful responses only); requests still in
+    // flight at the deadline are awaited, so the elapsed time covers every recorded response
+    private static Samples drive(HttpClient client, ExecutorService executor, HttpRequest request,
+                                 int clients, Duration duration) throws Exception {
+        long start = System.nanoTime();
+        long deadline = start + duration.toNanos();
+        List<Future<Samples>> futures = new ArrayList<>(clients);
+        for (int i = 0; i < clients; i++) {
+            futures.add(executor.submit(() -> runClient(client, request, deadline)));
+        }
+        long[] merged = new long[0];
+        long errors = 0;
+        for (Future<Samples> future : futures) {
+            Samples samples = future.get();
+            int offset = merged.length;
+            merged = Arrays.copyOf(merged, offset + samples.latencies().length);
+            System.arraycopy(samples.latencies(), 0, merged, offset, samples.latencies().length);
+            errors += samples.errors();
+        }
+        Arrays.sort(merged);
+        return new Samples(merged, errors, Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    private static Samples runClient(HttpClient client, HttpRequest request, long deadline) {
+        long[] latencies = new long[256];
+        int count = 0;
+        long errors = 0;
+        while (System.nanoTime() < deadline) {
+            long start = System.nanoTime();
+            try {
+                HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() / 100 != 2) {
+                    errors++;
+                    continue;
+                }
+            } catch (IOException ex) {
+                errors++;
+                continue;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = System.nanoTime() - start;
+        }
+        return new Samples(Arrays.copyOf(latencies, count), errors, Duration.ZERO);
+    }
+
+    static String login(HttpClient client, String baseUrl, String email, String password)
+            throws IOException, InterruptedException {
+        String body = objectMapper.writeValueAsString(Map.of("email", email, "password", password));
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/login"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(body))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Login as " + email + " failed with " + response.statusCode()
+                    + ": " + response.body());
+        }
+        return objectMapper.readTree(response.body()).get("token").asText();
+    }
+
+    static HttpRequest.Builder authorized(String url, String token) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofSeconds(30))
+                .header("Authorization", "Bearer " + token);
+    }
+
+    private static ConfigurableApplicationContext start(Mode mode) {
+        return start(mode.profiles);
+    }
+
+    // Starts the application in-process and waits for the demo data. The arguments are passed like command line
+    // properties, so they override application.properties (SpringApplicationBuilder.properties would not).
+    static ConfigurableApplicationContext start(String[] profiles, String... args) {
+        List<String> runArgs = new ArrayList<>(List.of(args));
+        // random port, and no SQL logging: printing every statement would dominate the measurements
+        runArgs.add("--server.port=0");
+        runArgs.add("--spring.jpa.show-sql=false");
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(BackendApplication.class)
+                .profiles(profiles)
+                .run(runArgs.toArray(String[]::new));
+        // on an empty database the login account only exists once the background seeding is done
+        context.getBean(DataSeeder.class).seeded().join();
+        return context;
+    }
+
+    static String baseUrl(ConfigurableApplicationContext context) {
+        Environment environment = context.getEnvironment();
+        return "http://localhost:" + environment.getProperty("local.server.port")
+                + environment.getProperty("server.servlet.context-path", "");
+    }
+
+    static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        return options;
+    }
+
+    private enum Mode {
+        PLATFORM("platform"),
+        VIRTUAL("virtual", "virtual");
+
+        private final String label;
+        private final String[] profiles;
+
+        Mode(String label, String... profiles) {
+            this.label = label;
+            this.profiles = profiles;
+        }
+    }
+
+    private record Samples(long[] latencies, long errors, Duration elapsed) {
+    }
+
+    // latencies are sorted nanoseconds
+    private record Result(String mode, String endpoint, long[] latencies, long errors, Duration elapsed) {
+
+        long requests() {
+            return latencies.length;
+        }
+
+        double throughput() {
+            return latencies.length / (elapsed.toNanos() / 1e9);
+        }
+
+        double percentileMillis(double percentile) {
+            if (latencies.length == 0) {
+                return Double.NaN;
+            }
+            int index = (int) Math.ceil(percentile * latencies.length) - 1;
+            return latencies[Math.max(index, 0)] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,439 @@
+package org.example.backend.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.*;
+
+// End-to-end load test of the whole stack with a realistic traffic mix: patients log in, search doctors, list and
+// book appointments, and read and search their medical records, each endpoint with its own weight. Closed-loop
+// clients send their next request as soon as the previous response arrived. The client count is swept step by step
+// (--sweep) to find where throughput stops growing and latency takes off; every step reports p50/p95/p99, rejections
+// (4xx, e.g. a full doctor day) and errors (5xx and I/O failures) per endpoint.
+//
+// Without --base-url the application is started in-process and seeded with the given volumes: against DB_URL when
+// it is set, otherwise against a throwaway PostgreSQL container. Seeding only happens on an empty database, so reuse
+// a seeded one across runs. With --base-url an already running, already seeded server is measured instead. Bookings
+// are real writes, so appointments accumulate from run to run.
+//
+// Options: --sweep=50,100,200,400,800 --duration=PT30S --warmup=PT10S --accounts=100 --password=password
+//          --patients=100000 --doctors=5000 --appointments=2000000 --medical-records=500000
+//          --profile=virtual --base-url=http://localhost:8080/api --report=target/loadtest/mix.csv
+public class TrafficMixHarness {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static final String[] SEARCH_TERMS = {
+            "headache", "chest pain", "\"lower back\"", "rash", "blood pressure", "knee", "palpitations",
+            "fever -throat", "physiotherapy", "cholesterol or ECG"};
+    private static final String ALL_DOCTORS = "{\"city\":\"ALL\",\"doctorSpeciality\":\"ALL\"}";
+    // accounts are logged in this many at a time: every login is a bcrypt check
+    private static final int LOGIN_CONCURRENCY = 8;
+    private static final int DOCTOR_PAGES = 10;
+    private static final int DOCTOR_PAGE_SIZE = 100;
+    private static final int BOOKING_DAYS_AHEAD = 30;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = LoadTestHarness.parseOptions(args);
+        int[] sweep = Arrays.stream(options.getOrDefault("sweep", "50,100,200,400,800").split(","))
+                .mapToInt(clients -> Integer.parseInt(clients.trim())).toArray();
+        Duration duration = Duration.parse(options.getOrDefault("duration", "PT30S"));
+        Duration warmup = Duration.parse(options.getOrDefault("warmup", "PT10S"));
+        int accounts = Integer.parseInt(options.getOrDefault("accounts", "100"));
+        String password = options.getOrDefault("password", "password");
+        Path report = Path.of(options.getOrDefault("report", "target/loadtest/mix-"
+                + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".csv"));
+
+        PostgreSQLContainer<?> container = null;
+        ConfigurableApplicationContext context = null;
+        try {
+            String baseUrl = options.get("base-url");
+            if (baseUrl == null) {
+                List<String> runArgs = new ArrayList<>(List.of(
+                        "--seed.patients=" + options.getOrDefault("patients", "100000"),
+                        "--seed.doctors=" + options.getOrDefault("doctors", "5000"),
+                        "--seed.appointments=" + options.getOrDefault("appointments", "2000000"),
+                        "--seed.medical-records=" + options.getOrDefault("medical-records", "500000"),
+                        "--seed.password=" + password));
+                if (System.getenv("DB_URL") == null) {
+                    container = new PostgreSQLContainer<>(DockerImageName.parse("postgres:16-alpine"));
+                    container.start();
+                    runArgs.add("--spring.datasource.url=" + container.getJdbcUrl());
+                    runArgs.add("--spring.datasource.username=" + container.getUsername());
+                    runArgs.add("--spring.datasource.password=" + container.getPassword());
+                }
+                if (System.getenv("JWT_SECRET") == null) {
+                    runArgs.add("--jwt.secret=" + UUID.randomUUID() + UUID.randomUUID());
+                    runArgs.add("--jwt.expiration-ms=86400000");
+                }
+                String[] profiles = options.containsKey("profile")
+                        ? options.get("profile").split(",") : new String[0];
+                System.out.println("Starting the application and seeding the database, this takes a while");
+                context = LoadTestHarness.start(profiles, runArgs.toArray(String[]::new));
+                baseUrl = LoadTestHarness.baseUrl(context);
+            }
+            run(baseUrl, accounts, password, sweep, warmup, duration, report);
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+            if (container != null) {
+                container.stop();
+            }
+        }
+    }
+
+    private static void run(String baseUrl, int accounts, String password, int[] sweep, Duration warmup,
+                            Duration duration, Path report) throws Exception {
+        // the client side runs on virtual threads as well, so hundreds of blocking senders cost almost nothing
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient client = HttpClient.newBuilder()
+                     .version(HttpClient.Version.HTTP_1_1)
+                     .connectTimeout(Duration.ofSeconds(10))
+                     .executor(executor)
+                     .build()) {
+            Traffic traffic = prepare(client, executor, baseUrl, accounts, password);
+            System.out.printf("%d accounts, %d doctors to book with%n", traffic.tokens().size(),
+                    traffic.doctorIds().length);
+
+            List<Step> steps = new ArrayList<>();
+            for (int clients : sweep) {
+                System.out.printf("%n%d clients: warm-up %s, measuring %s%n", clients, warmup, duration);
+                drive(client, executor, traffic, clients, warmup);
+                Step step = drive(client, executor, traffic, clients, duration);
+                steps.add(step);
+                step.print();
+            }
+
+            Step peak = steps.stream().max(Comparator.comparingDouble(step -> step.total().throughput(step.elapsed())))
+                    .orElseThrow();
+            System.out.printf("%n%10s %12s %10s %10s %10s %8s%n", "clients", "req/s", "p50 ms", "p95 ms", "p99 ms",
+                    "errors");
+            for (Step step : steps) {
+                Tally total = step.total();
+                System.out.printf("%10d %12.1f %10.1f %10.1f %10.1f %7.2f%%%s%n", step.clients(),
+                        total.throughput(step.elapsed()), total.percentileMillis(0.50),
+                        total.percentileMillis(0.95), total.percentileMillis(0.99), total.errorRate() * 100,
+                        step == peak ? "  <- peak throughput" : "");
+            }
+            writeReport(report, steps);
+            System.out.println("Report written to " + report.toAbsolutePath());
+        }
+    }
+
+    // logs in the accounts and collects doctor ids to book with from the doctor search
+    private static Traffic prepare(HttpClient client, ExecutorService executor, String baseUrl, int accounts,
+                                   String password) throws Exception {
+        Semaphore permits = new Semaphore(LOGIN_CONCURRENCY);
+        List<Future<String>> logins = new ArrayList<>(accounts);
+        for (int i = 0; i < accounts; i++) {
+            String email = "patient" + i + "@gmail.com";
+            logins.add(executor.submit(() -> {
+                permits.acquire();
+                try {
+                    return LoadTestHarness.login(client, baseUrl, email, password);
+                } finally {
+                    permits.release();
+                }
+            }));
+        }
+        List<String> tokens = new ArrayList<>(accounts);
+        for (Future<String> login : logins) {
+            tokens.add(login.get());
+        }
+
+        List<Long> doctorIds = new ArrayList<>();
+        for (int page = 0; page < DOCTOR_PAGES; page++) {
+            String url = baseUrl + "/patient/doctors-search?page=" + page + "&size=" + DOCTOR_PAGE_SIZE;
+            HttpResponse<String> response = client.send(LoadTestHarness.authorized(url, tokens.getFirst())
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString(ALL_DOCTORS))
+                            .build(),
+                    HttpResponse.BodyHandlers.ofString());
+            JsonNode doctors = objectMapper.readTree(response.body());
+            if (response.statusCode() != 200 || doctors.isEmpty()) {
+                break;
+            }
+            doctors.forEach(doctor -> doctorIds.add(doctor.get("id").asLong()));
+        }
+        if (doctorIds.isEmpty()) {
+            throw new IllegalStateException("The doctor search found no doctors, is the database seeded?");
+        }
+        return new Traffic(baseUrl, tokens, doctorIds.stream().mapToLong(Long::longValue).toArray(),
+                Map.of("email", "patient0@gmail.com", "password", password));
+    }
+
+    // runs the clients until the deadline and merges their tallies; requests still in flight at the deadline are
+    // awaited, so the elapsed time covers every recorded response
+    private static Step drive(HttpClient client, ExecutorService executor, Traffic traffic, int clients,
+                             Duration duration) throws Exception {
+        long start = System.nanoTime();
+        long deadline = start + duration.toNanos();
+        List<Future<Tally[]>> futures = new ArrayList<>(clients);
+        for (int i = 0; i < clients; i++) {
+            String token = traffic.tokens().get(i % traffic.tokens().size());
+            futures.add(executor.submit(() -> runClient(client, traffic, token, deadline)));
+        }
+        Tally[] merged = new Tally[Endpoint.VALUES.length];
+        for (int i = 0; i < merged.length; i++) {
+            merged[i] = new Tally();
+        }
+        for (Future<Tally[]> future : futures) {
+            Tally[] tallies = future.get();
+            for (int i = 0; i < merged.length; i++) {
+                merged[i].add(tallies[i]);
+            }
+        }
+        for (Tally tally : merged) {
+            tally.sort();
+        }
+        return new Step(clients, merged, Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    private static Tally[] runClient(HttpClient client, Traffic traffic, String token, long deadline) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Tally[] tallies = new Tally[Endpoint.VALUES.length];
+        for (int i = 0; i < tallies.length; i++) {
+            tallies[i] = new Tally();
+        }
+        while (System.nanoTime() < deadline) {
+            Endpoint endpoint = Endpoint.pick(random);
+            HttpRequest request = endpoint.request(traffic, token, random);
+            long start = System.nanoTime();
+            try {
+                HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                tallies[endpoint.ordinal()].record(response.statusCode(), System.nanoTime() - start);
+            } catch (IOException ex) {
+                tallies[endpoint.ordinal()].errors++;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return tallies;
+    }
+
+    private static void writeReport(Path report, List<Step> steps) throws IOException {
+        if (report.getParent() != null) {
+            Files.createDirectories(report.getParent());
+        }
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(report))) {
+            writer.println("clients,endpoint,requests,rejected,errors,req_per_s,p50_ms,p95_ms,p99_ms");
+            for (Step step : steps) {
+                for (int i = 0; i < Endpoint.VALUES.length; i++) {
+                    writeRow(writer, step, Endpoint.VALUES[i].label, step.tallies()[i]);
+                }
+                writeRow(writer, step, "TOTAL", step.total());
+            }
+        }
+    }
+
+    private static void writeRow(PrintWriter writer, Step step, String endpoint, Tally tally) {
+        writer.printf(Locale.ROOT, "%d,%s,%d,%d,%d,%.1f,%.2f,%.2f,%.2f%n", step.clients(), endpoint,
+                tally.requests(), tally.rejected, tally.errors, tally.throughput(step.elapsed()),
+                tally.percentileMillis(0.50), tally.percentileMillis(0.95), tally.percentileMillis(0.99));
+    }
+
+    // The traffic mix: weights are relative shares of all requests. Reads dominate, logins are rare (tokens last a
+    // day) but expensive, and bookings hit random doctors and days, so some of them are rejected like real ones.
+    private enum Endpoint {
+        LOGIN("POST /login", 2) {
+            @Override
+            HttpRequest request(Traffic traffic, String token, ThreadLocalRandom random) {
+                return json(HttpRequest.newBuilder(URI.create(traffic.baseUrl() + "/login"))
+                        .timeout(Duration.ofSeconds(30)), traffic.login());
+            }
+        },
+        DOCTORS_SEARCH("POST /patient/doctors-search", 30) {
+            @Override
+            HttpRequest request(Traffic traffic, String token, ThreadLocalRandom random) {
+                Map<String, String> filters = new HashMap<>();
+                filters.put("city", anyOf(random, "ALL", "CAIRO", "GIZA", "ALEXANDRIA"));
+                filters.put("doctorSpeciality", anyOf(random, "ALL", "CARDIOLOGY", "DERMATOLOGY", "NEUROLOGY"));
+                if (random.nextInt(3) == 0) {
+                    filters.put("availableDay", anyOf(random, "SUNDAY", "MONDAY", "TUESDAY", "WEDNESDAY"));
+                }
+                if (random.nextInt(3) == 0) {
+                    filters.put("feeRange", anyOf(random, "UNDER_200", "FROM_200_TO_350", "FROM_350_TO_500"));
+                }
+                return json(LoadTestHarness.authorized(traffic.baseUrl() + "/patient/doctors-search?page="
+                        + random.nextInt(3) + "&size=10", token), filters);
+            }
+        },
+        APPOINTMENTS_LIST("GET /appointments", 20) {
+            @Override
+            HttpRequest request(Traffic traffic, String token, ThreadLocalRandom random) {
+                return LoadTestHarness.authorized(traffic.baseUrl() + "/appointments?page=0&size=10", token)
+                        .GET().build();
+            }
+        },
+        APPOINTMENTS_BOOK("POST /appointments", 8) {
+            @Override
+            HttpRequest request(Traffic traffic, String token, ThreadLocalRandom random) {
+                long doctorId = traffic.doctorIds()[random.nextInt(traffic.doctorIds().length)];
+                LocalDate date = LocalDate.now().plusDays(1 + random.nextInt(BOOKING_DAYS_AHEAD));
+                return json(LoadTestHarness.authorized(traffic.baseUrl() + "/appointments", token),
+                        Map.of("date", date.toString(), "doctorId", doctorId));
+            }
+        },
+        RECORDS_TIMELINE("GET /medical-records/patient/me/timeline", 25) {
+            @Override
+            HttpRequest request(Traffic traffic, String token, ThreadLocalRandom random) {
+                return LoadTestHarness.authorized(traffic.baseUrl() + "/medical-records/patient/me/timeline?size=20",
+                        token).GET().build();
+            }
+        },
+        RECORDS_SEARCH("GET /medical-records/search", 15) {
+            @Override
+            HttpRequest request(Traffic traffic, String token, ThreadLocalRandom random) {
+                String query = URLEncoder.encode(anyOf(random, SEARCH_TERMS),
+                        StandardCharsets.UTF_8);
+                return LoadTestHarness.authorized(traffic.baseUrl() + "/medical-records/search?size=20&q=" + query,
+                        token).GET().build();
+            }
+        };
+
+        private static final Endpoint[] VALUES = values();
+        private static final int TOTAL_WEIGHT = Arrays.stream(VALUES).mapToInt(endpoint -> endpoint.weight).sum();
+
+        private final String label;
+        private final int weight;
+
+        Endpoint(String label, int weight) {
+            this.label = label;
+            this.weight = weight;
+        }
+
+        abstract HttpRequest request(Traffic traffic, String token, ThreadLocalRandom random);
+
+        static Endpoint pick(ThreadLocalRandom random) {
+            int draw = random.nextInt(TOTAL_WEIGHT);
+            for (Endpoint endpoint : VALUES) {
+                draw -= endpoint.weight;
+                if (draw < 0) {
+                    return endpoint;
+                }
+            }
+            throw new IllegalStateException();
+        }
+
+        private static String anyOf(ThreadLocalRandom random, String... values) {
+            return values[random.nextInt(values.length)];
+        }
+
+        private static HttpRequest json(HttpRequest.Builder builder, Object body) {
+            try {
+                return builder.header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                        .build();
+            } catch (IOException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+    }
+
+    private record Traffic(String baseUrl, List<String> tokens, long[] doctorIds, Map<String, String> login) {
+    }
+
+    private record Step(int clients, Tally[] tallies, Duration elapsed) {
+
+        Tally total() {
+            Tally total = new Tally();
+            for (Tally tally : tallies) {
+                total.add(tally);
+            }
+            total.sort();
+            return total;
+        }
+
+        void print() {
+            System.out.printf("%-42s %10s %9s %8s %10s %9s %9s %9s%n", "endpoint", "requests", "rejected",
+                    "errors", "req/s", "p50 ms", "p95 ms", "p99 ms");
+            for (int i = 0; i < tallies.length; i++) {
+                print(Endpoint.VALUES[i].label, tallies[i]);
+            }
+            print("TOTAL", total());
+        }
+
+        private void print(String endpoint, Tally tally) {
+            System.out.printf("%-42s %10d %9d %8d %10.1f %9.1f %9.1f %9.1f%n", endpoint, tally.requests(),
+                    tally.rejected, tally.errors, tally.throughput(elapsed), tally.percentileMillis(0.50),
+                    tally.percentileMillis(0.95), tally.percentileMillis(0.99));
+        }
+    }
+
+    // Responses of one endpoint: latencies in nanoseconds of every answered request (2xx and 4xx, since a rejected
+    // booking is a normal answer), the 4xx count, and errors, i.e. 5xx responses and failed requests
+    private static final class Tally {
+        private long[] latencies = new long[256];
+        private int count;
+        private long rejected;
+        private long errors;
+
+        void record(int status, long latency) {
+            if (status >= 500) {
+                errors++;
+                return;
+            }
+            if (status >= 400) {
+                rejected++;
+            }
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latency;
+        }
+
+        void add(Tally other) {
+            if (count + other.count > latencies.length) {
+                latencies = Arrays.copyOf(latencies, count + other.count);
+            }
+            System.arraycopy(other.latencies, 0, latencies, count, other.count);
+            count += other.count;
+            rejected += other.rejected;
+            errors += other.errors;
+        }
+
+        void sort() {
+            Arrays.sort(latencies, 0, count);
+        }
+
+        long requests() {
+            return count + errors;
+        }
+
+        double throughput(Duration elapsed) {
+            return count / (elapsed.toNanos() / 1e9);
+        }
+
+        double errorRate() {
+            return requests() == 0 ? 0 : (double) errors / requests();
+        }
+
+        double percentileMillis(double percentile) {
+            if (count == 0) {
+                return Double.NaN;
+            }
+            int index = (int) Math.ceil(percentile * count) - 1;
+            return latencies[Math.max(index, 0)] / 1e6;
+        }
+    }
+}
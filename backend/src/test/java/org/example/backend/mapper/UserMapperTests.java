@@ -0,0 +1,102 @@
+package org.example.backend.mapper;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.example.backend.dto.DoctorMainView;
+import org.example.backend.dto.DoctorRegisterRequest;
+import org.example.backend.dto.UserMainView;
+import org.example.backend.dto.UserRegisterRequest;
+import org.example.backend.model.*;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The hand-written mappings must serialize exactly like the ModelMapper conventions they replace
+class UserMapperTests {
+    private final UserMapper userMapper = new UserMapper();
+    private final ModelMapper modelMapper = new ModelMapper();
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+    static Doctor doctor() {
+        return Doctor.builder()
+                .id(7L)
+                .fullName("Doctor Seven")
+                .email("doctor7@gmail.com")
+                .password("hashed-password")
+                .phoneNumber("01112345678")
+                .city(City.GIZA)
+                .street("Pyramids street")
+                .doctorSpeciality(DoctorSpeciality.CARDIOLOGY)
+                .info("Cardiologist with twenty years of experience")
+                .patientNumber(20)
+                .startTime(LocalTime.of(9, 0))
+                .endTime(LocalTime.of(17, 30))
+                .consultationFee(250.5)
+                // not in week order, so a view that reorders the days differs from ModelMapper's
+                .availableDays(List.of(Day.WEDNESDAY, Day.SATURDAY, Day.MONDAY))
+                .build();
+    }
+
+    static Patient patient() {
+        return Patient.builder()
+                .id(3L)
+                .fullName("Patient Three")
+                .email("patient3@gmail.com")
+                .password("hashed-password")
+                .phoneNumber("01012345678")
+                .build();
+    }
+
+    @Test
+    void doctorMainViewMatchesModelMapper() throws Exception {
+        Doctor doctor = doctor();
+
+        assertThat(objectMapper.writeValueAsString(userMapper.toDoctorMainView(doctor)))
+                .isEqualTo(objectMapper.writeValueAsString(modelMapper.map(doctor, DoctorMainView.class)));
+    }
+
+    @Test
+    void availableDaysAreReadFromTheMaskAndTheOrder() {
+        Doctor doctor = doctor();
+        doctor.setAvailableDays(List.of(Day.SUNDAY, Day.MONDAY, Day.SUNDAY));
+
+        assertThat(doctor.getAvailableDaysMask()).isEqualTo(0b1000001);
+        assertThat(doctor.isAvailableOn(Day.of(DayOfWeek.SUNDAY))).isTrue();
+        assertThat(doctor.isAvailableOn(Day.of(DayOfWeek.TUESDAY))).isFalse();
+        assertThat(Day.fromOrder(Day.toOrder(List.of(Day.values())))).containsExactly(Day.values());
+        // the view lists the days as given, without the duplicate, and without reading the collection
+        doctor.setAvailableDays(null);
+        doctor.setAvailableDaysMask(0b1000001);
+        doctor.setAvailableDaysOrder(Day.toOrder(List.of(Day.SUNDAY, Day.MONDAY)));
+        assertThat(userMapper.toDoctorMainView(doctor).getAvailableDays()).containsExactly(Day.SUNDAY, Day.MONDAY);
+    }
+
+    @Test
+    void userMainViewMatchesModelMapper() throws Exception {
+        Patient patient = patient();
+
+        assertThat(objectMapper.writeValueAsString(userMapper.toUserMainView(patient)))
+                .isEqualTo(objectMapper.writeValueAsString(modelMapper.map(patient, UserMainView.class)));
+    }
+
+    @Test
+    void registerRequestsMatchModelMapper() {
+        DoctorRegisterRequest doctorRequest = modelMapper.map(doctor(), DoctorRegisterRequest.class);
+        UserRegisterRequest patientRequest = modelMapper.map(patient(), UserRegisterRequest.class);
+
+        assertThat(userMapper.toUser(doctorRequest, Doctor.class))
+                .usingRecursiveComparison()
+                .isEqualTo(modelMapper.map(doctorRequest, Doctor.class));
+        assertThat(userMapper.toUser(patientRequest, Patient.class))
+                .usingRecursiveComparison()
+                .isEqualTo(modelMapper.map(patientRequest, Patient.class));
+    }
+}
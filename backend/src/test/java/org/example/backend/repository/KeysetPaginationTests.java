@@ -0,0 +1,192 @@
+package org.example.backend.repository;
+
+import org.example.backend.PostgresTestConfiguration;
+import org.example.backend.dto.AppointmentResponse;
+import org.example.backend.model.*;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Scrolls the keyset queries to the end in slices of two, so that slices end inside runs of equal names and dates,
+// and compares every scroll with the OFFSET pages of the same query
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(PostgresTestConfiguration.class)
+@Testcontainers(disabledWithoutDocker = true)
+class KeysetPaginationTests {
+    private static final int SLICE = 2;
+    // only the doctors of this test have this fee
+    private static final double FEE = 777.0;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void doctorSearchScrollsLikeItsPages() {
+        List<Doctor> doctors = new ArrayList<>();
+        // by ordinal OPHTHALMOLOGY comes after ORTHOPEDICS, by name (as stored) before it: the cursor's speciality
+        // must be compared by name, like the ORDER BY
+        String[][] rows = {
+                {"CARDIOLOGY", "Sara Hamdy"}, {"NEUROLOGY", "Sara Hamdy"}, {"CARDIOLOGY", "Sara Hamdy"},
+                {"ORTHOPEDICS", "Omar Said"}, {"OPHTHALMOLOGY", "Omar Said"}, {"CARDIOLOGY", "Zeinab Ali"},
+                {"NEUROLOGY", "Adel Nour"}, {"CARDIOLOGY", "Sara Hamdy"}, {"OPHTHALMOLOGY", "Omar Said"},
+                {"NEUROLOGY", "Sara Hamdy"}, {"ORTHOPEDICS", "Amira Fathy"}};
+        for (int i = 0; i < rows.length; i++) {
+            doctors.add(userRepository.save(doctor(i, rows[i][1], DoctorSpeciality.valueOf(rows[i][0]))));
+        }
+        List<Long> expected = doctors.stream()
+                .sorted(Comparator.comparing((Doctor doctor) -> doctor.getDoctorSpeciality().name())
+                        .thenComparing(Doctor::getFullName)
+                        .thenComparing(Doctor::getId))
+                .map(Doctor::getId)
+                .toList();
+
+        assertThat(scrollDoctors(null)).isEqualTo(expected);
+        assertThat(ids(offsetPages(page -> doctorRepository.search(null, null, 0, FEE, FEE + 1,
+                PageRequest.of(page, SLICE)).getContent()), Doctor::getId)).isEqualTo(expected);
+
+        List<Long> neurology = doctors.stream()
+                .filter(doctor -> doctor.getDoctorSpeciality() == DoctorSpeciality.NEUROLOGY)
+                .map(Doctor::getId)
+                .toList();
+        assertThat(scrollDoctors(DoctorSpeciality.NEUROLOGY))
+                .isEqualTo(expected.stream().filter(neurology::contains).toList());
+    }
+
+    @Test
+    void appointmentListsScrollLikeTheirPages() {
+        Patient patient = userRepository.save(patient(0));
+        Patient other = userRepository.save(patient(1));
+        List<Doctor> doctors = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            doctors.add(userRepository.save(doctor(20 + i, "Appointment Doctor", DoctorSpeciality.CARDIOLOGY)));
+        }
+        LocalDate today = LocalDate.now();
+        List<Appointment> appointments = new ArrayList<>();
+        // several appointments per day; the patient and doctor lists both hold runs of equal dates
+        int[][] rows = {{3, 0, 0}, {1, 0, 1}, {3, 0, 2}, {1, 0, 3}, {3, 0, 1}, {6, 0, 0}, {1, 0, 0},
+                {1, 1, 0}, {3, 1, 0}, {0, 1, 0}};
+        for (int[] row : rows) {
+            appointments.add(appointmentRepository.save(Appointment.builder()
+                    .date(today.plusDays(row[0]))
+                    .patient(row[1] == 0 ? patient : other)
+                    .doctor(doctors.get(row[2]))
+                    .build()));
+        }
+        // one appointment in the past, before the lists' start date
+        appointmentRepository.save(Appointment.builder()
+                .date(today.minusDays(1)).patient(patient).doctor(doctors.getFirst()).build());
+
+        List<Long> ofPatient = byDateAndId(appointments.stream()
+                .filter(appointment -> appointment.getPatient().getId().equals(patient.getId())).toList());
+        assertThat(scrollAppointments(
+                after -> after == null
+                        ? appointmentRepository.findResponsesByPatientId(patient.getId(), today,
+                                PageRequest.of(0, SLICE))
+                        : appointmentRepository.findResponsesByPatientIdAfter(patient.getId(), today,
+                                after.getDate(), after.getId(), Limit.of(SLICE))))
+                .isEqualTo(ofPatient);
+        assertThat(ids(offsetPages(page -> appointmentRepository.findResponsesByPatientId(patient.getId(), today,
+                PageRequest.of(page, SLICE))), AppointmentResponse::getId)).isEqualTo(ofPatient);
+
+        Long doctorId = doctors.getFirst().getId();
+        List<Long> ofDoctor = byDateAndId(appointments.stream()
+                .filter(appointment -> appointment.getDoctor().getId().equals(doctorId)).toList());
+        assertThat(scrollAppointments(
+                after -> after == null
+                        ? appointmentRepository.findResponsesByDoctorId(doctorId, today, PageRequest.of(0, SLICE))
+                        : appointmentRepository.findResponsesByDoctorIdAfter(doctorId, today, after.getDate(),
+                                after.getId(), Limit.of(SLICE))))
+                .isEqualTo(ofDoctor);
+        assertThat(ids(offsetPages(page -> appointmentRepository.findResponsesByDoctorId(doctorId, today,
+                PageRequest.of(page, SLICE))), AppointmentResponse::getId)).isEqualTo(ofDoctor);
+    }
+
+    private List<Long> scrollDoctors(DoctorSpeciality speciality) {
+        List<Long> ids = new ArrayList<>();
+        List<Doctor> slice = doctorRepository.searchFirst(null, speciality, 0, FEE, FEE + 1, Limit.of(SLICE));
+        while (!slice.isEmpty()) {
+            ids.addAll(ids(slice, Doctor::getId));
+            Doctor last = slice.getLast();
+            slice = doctorRepository.searchAfter(null, speciality, 0, FEE, FEE + 1, last.getDoctorSpeciality(),
+                    last.getFullName(), last.getId(), Limit.of(SLICE));
+        }
+        return ids;
+    }
+
+    private static List<Long> scrollAppointments(Function<AppointmentResponse, List<AppointmentResponse>> next) {
+        List<Long> ids = new ArrayList<>();
+        List<AppointmentResponse> slice = next.apply(null);
+        while (!slice.isEmpty()) {
+            ids.addAll(ids(slice, AppointmentResponse::getId));
+            slice = next.apply(slice.getLast());
+        }
+        return ids;
+    }
+
+    // every page until the first one that is not full
+    private static <T> List<T> offsetPages(IntFunction<List<T>> page) {
+        List<T> rows = new ArrayList<>();
+        for (int number = 0; rows.size() == number * SLICE; number++) {
+            rows.addAll(page.apply(number));
+        }
+        return rows;
+    }
+
+    private static List<Long> byDateAndId(List<Appointment> appointments) {
+        return appointments.stream()
+                .sorted(Comparator.comparing(Appointment::getDate).thenComparing(Appointment::getId))
+                .map(Appointment::getId)
+                .toList();
+    }
+
+    private static <T> List<Long> ids(List<T> rows, Function<T, Long> id) {
+        return rows.stream().map(id).toList();
+    }
+
+    private static Patient patient(int number) {
+        return Patient.builder()
+                .fullName("Keyset Patient " + number)
+                .email("keyset.patient" + number + "@gmail.com")
+                .password("password")
+                .phoneNumber("012550000" + (10 + number))
+                .build();
+    }
+
+    private static Doctor doctor(int number, String name, DoctorSpeciality speciality) {
+        return Doctor.builder()
+                .fullName(name)
+                .email("keyset.doctor" + number + "@gmail.com")
+                .password("password")
+                .phoneNumber("012560000" + (10 + number))
+                .city(City.CAIRO)
+                .street("Keyset street")
+                .doctorSpeciality(speciality)
+                .info("Doctor used by the keyset pagination tests")
+                .patientNumber(10)
+                .startTime(LocalTime.of(9, 0))
+                .endTime(LocalTime.of(17, 0))
+                .consultationFee(FEE)
+                .availableDays(new ArrayList<>(List.of(Day.values())))
+                .build();
+    }
+}
@@ -0,0 +1,137 @@
+package org.example.backend.repository;
+
+import org.example.backend.PostgresTestConfiguration;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Checks with EXPLAIN that the hot repository predicates are served by the indexes of the V2 migration.
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(PostgresTestConfiguration.class)
+@Testcontainers(disabledWithoutDocker = true)
+class QueryIndexTests {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void doctorCapacityCountUsesDoctorDateIndex() {
+        assertThat(plan("SELECT count(*) FROM appointments WHERE doctor_id = 1 AND date = DATE '2030-01-01'"))
+                .contains("idx_appointments_doctor_date");
+    }
+
+    @Test
+    void doctorAppointmentSliceUsesDoctorDateIndex() {
+        assertThat(plan("""
+                SELECT id FROM appointments
+                WHERE doctor_id = 1 AND date >= CURRENT_DATE AND (date, id) > (CURRENT_DATE, 0)
+                ORDER BY date, id LIMIT 11"""))
+                .contains("idx_appointments_doctor_date");
+    }
+
+    @Test
+    void patientAppointmentPageUsesPatientDateIndex() {
+        assertThat(plan("""
+                SELECT id FROM appointments
+                WHERE patient_id = 1 AND date >= CURRENT_DATE
+                ORDER BY date, id LIMIT 10"""))
+                .contains("idx_appointments_patient_date");
+    }
+
+    @Test
+    void availabilityCalendarUsesDoctorDateSlotIndex() {
+        assertThat(plan("""
+                SELECT date, booked FROM doctor_day_slots
+                WHERE doctor_id = 1 AND date BETWEEN CURRENT_DATE AND CURRENT_DATE + 30"""))
+                .contains("idx_doctor_day_slots_doctor_date");
+    }
+
+    @Test
+    void doctorSearchByCityAndSpecialityUsesCompositeIndex() {
+        assertThat(plan("""
+                SELECT d.id FROM doctors d JOIN users u ON u.id = d.id
+                WHERE d.city = 'CAIRO' AND d.doctor_speciality = 'CARDIOLOGY'
+                ORDER BY d.doctor_speciality, u.full_name, d.id LIMIT 10"""))
+                // with both predicates the planner may prefer either index; it must not scan doctors
+                .containsAnyOf("idx_doctors_city_speciality", "idx_doctors_speciality")
+                .doesNotContain("Seq Scan on doctors");
+    }
+
+    @Test
+    void doctorSearchBySpecialityUsesSpecialityIndex() {
+        assertThat(plan("""
+                SELECT d.id FROM doctors d JOIN users u ON u.id = d.id
+                WHERE d.doctor_speciality = 'CARDIOLOGY'
+                ORDER BY d.doctor_speciality, u.full_name, d.id LIMIT 10"""))
+                .contains("idx_doctors_speciality");
+    }
+
+    @Test
+    void recordsSharedWithDoctorUseJoinTableIndex() {
+        assertThat(plan("""
+                SELECT mr.id FROM medical_records mr
+                JOIN doctor_medical_records s ON s.medical_record_id = mr.id
+                WHERE s.doctor_id = 1"""))
+                .contains("uk_doctor_medical_records");
+    }
+
+    @Test
+    void patientTimelineUsesPatientDateIndex() {
+        assertThat(plan("""
+                SELECT id FROM medical_records
+                WHERE patient_id = 1 AND (date, id) < (CURRENT_DATE, 100)
+                ORDER BY date DESC, id DESC LIMIT 21"""))
+                .contains("idx_medical_records_patient_date");
+    }
+
+    @Test
+    void fullTextSearchUsesGinIndex() {
+        assertThat(plan("""
+                SELECT id FROM medical_records
+                WHERE content_tsv @@ websearch_to_tsquery('english', 'chest pain')"""))
+                .contains("idx_medical_records_patient_content_tsv");
+    }
+
+    @Test
+    void typeaheadUsesTrigramIndexes() {
+        assertThat(plan("SELECT id FROM users WHERE type = 'DOCTOR' AND full_name ILIKE 'sar%'"))
+                .contains("idx_users_doctor_full_name_trgm");
+        assertThat(plan("SELECT id FROM doctors WHERE 'corniche' <% street"))
+                .contains("idx_doctors_street_trgm");
+    }
+
+    @Test
+    void caseInsensitiveEmailLookupUsesExpressionIndex() {
+        assertThat(plan("SELECT id FROM users WHERE upper(email) = upper('someone@gmail.com')"))
+                .contains("idx_users_upper_email");
+    }
+
+    private String plan(String sql) {
+        return jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                // the test tables are nearly empty, so without this the planner would prefer sequential scans
+                statement.execute("SET enable_seqscan = off");
+                StringBuilder plan = new StringBuilder();
+                try (ResultSet rows = statement.executeQuery("EXPLAIN " + sql)) {
+                    while (rows.next()) {
+                        plan.append(rows.getString(1)).append('\n');
+                    }
+                } finally {
+                    statement.execute("RESET enable_seqscan");
+                }
+                return plan.toString();
+            }
+        });
+    }
+}
@@ -0,0 +1,180 @@
+package org.example.backend.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityNotFoundException;
+import org.example.backend.PostgresTestConfiguration;
+import org.example.backend.dto.AppointmentResponse;
+import org.example.backend.dto.BookAppointmentRequest;
+import org.example.backend.dto.DayAvailability;
+import org.example.backend.dto.DoctorSearchRequest;
+import org.example.backend.dto.EarliestAvailability;
+import org.example.backend.exception.ErrorMessage;
+import org.example.backend.model.*;
+import org.example.backend.repository.AppointmentRepository;
+import org.example.backend.repository.UserRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(PostgresTestConfiguration.class)
+@Testcontainers(disabledWithoutDocker = true)
+class AppointmentServiceTests {
+    private static final int PATIENTS = 2000;
+    private static final int CAPACITY = 25;
+    private static final int PAGE_SIZE = 10;
+
+    @Autowired
+    private AppointmentService appointmentService;
+    @Autowired
+    private PatientService patientService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void concurrentBookingsNeverExceedDoctorCapacity() throws Exception {
+        Doctor doctor = userRepository.save(doctor("stress.doctor", "01100000000", CAPACITY));
+        List<Patient> patients = new ArrayList<>();
+        for (int i = 0; i < PATIENTS; i++) {
+            patients.add(Patient.builder()
+                    .fullName("Stress Patient " + i)
+                    .email("stress.patient" + i + "@gmail.com")
+                    .password("password")
+                    .phoneNumber(String.format("010%08d", i))
+                    .build());
+        }
+        userRepository.saveAll(patients);
+        LocalDate date = LocalDate.now().plusDays(7);
+
+        ExecutorService executor = Executors.newFixedThreadPool(64);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger booked = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (Patient patient : patients) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    appointmentService.bookAppointment(new BookAppointmentRequest(date, doctor.getId()), patient);
+                    booked.incrementAndGet();
+                } catch (EntityNotFoundException ex) {
+                    assertThat(ex.getMessage()).isEqualTo(ErrorMessage.DOCTOR_CAPACITY_FULL.getMessage());
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        assertThat(booked.get()).isEqualTo(CAPACITY);
+        assertThat(rejected.get()).isEqualTo(PATIENTS - CAPACITY);
+        assertThat(appointmentRepository.countByDoctorIdAndDate(doctor.getId(), date)).isEqualTo(CAPACITY);
+    }
+
+    @Test
+    void appointmentsPageIsLoadedInOneStatement() {
+        Patient patient = userRepository.save(Patient.builder()
+                .fullName("Statistics Patient")
+                .email("statistics.patient@gmail.com")
+                .password("password")
+                .phoneNumber("01200000000")
+                .build());
+        List<Doctor> doctors = new ArrayList<>();
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            doctors.add(doctor("statistics.doctor" + i, String.format("015%08d", i), 10));
+        }
+        userRepository.saveAll(doctors);
+        List<Appointment> appointments = new ArrayList<>();
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            appointments.add(Appointment.builder()
+                    .date(LocalDate.now().plusDays(i + 1))
+                    .patient(patient)
+                    .doctor(doctors.get(i))
+                    .build());
+        }
+        appointmentRepository.saveAll(appointments);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        List<AppointmentResponse> patientPage = appointmentService.getAppointments(patient, 0, PAGE_SIZE);
+        assertThat(patientPage).hasSize(PAGE_SIZE);
+        assertThat(patientPage).extracting(AppointmentResponse::getDoctorName).doesNotContainNull();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+
+        statistics.clear();
+        List<AppointmentResponse> doctorPage = appointmentService.getAppointments(doctors.getFirst(), 0, PAGE_SIZE);
+        assertThat(doctorPage).singleElement()
+                .extracting(AppointmentResponse::getPatientName).isEqualTo("Statistics Patient");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void fullDaysAreSkippedByCalendarAndEarliestSearch() {
+        Doctor full = doctor("full.doctor", "01260000001", 1);
+        Doctor open = doctor("open.doctor", "01260000002", 2);
+        userRepository.saveAll(List.of(full, open));
+        Patient patient = userRepository.save(Patient.builder()
+                .fullName("Calendar Patient")
+                .email("calendar.patient@gmail.com")
+                .password("password")
+                .phoneNumber("01260000003")
+                .build());
+        LocalDate date = LocalDate.now().plusDays(10);
+        appointmentService.bookAppointment(new BookAppointmentRequest(date, full.getId()), patient);
+
+        assertThat(appointmentService.getAvailability(full.getId(), date, date.plusDays(1)))
+                .extracting(DayAvailability::getDate, DayAvailability::getRemaining)
+                .containsExactly(tuple(date, 0), tuple(date.plusDays(1), 1));
+
+        List<EarliestAvailability> earliest = patientService.findEarliestAvailable(
+                new DoctorSearchRequest(City.GIZA, DoctorSpeciality.CARDIOLOGY), date, date.plusDays(1), 1000);
+        assertThat(earliest)
+                .filteredOn(row -> List.of(full.getId(), open.getId()).contains(row.getDoctor().getId()))
+                .extracting(row -> row.getDoctor().getId(), EarliestAvailability::getDate,
+                        EarliestAvailability::getRemaining)
+                .containsExactly(tuple(open.getId(), date, 2), tuple(full.getId(), date.plusDays(1), 1));
+    }
+
+    private static Doctor doctor(String name, String phoneNumber, int capacity) {
+        return Doctor.builder()
+                .fullName("Doctor " + name)
+                .email(name + "@gmail.com")
+                .password("password")
+                .phoneNumber(phoneNumber)
+                .city(City.GIZA)
+                .street("Test street")
+                .doctorSpeciality(DoctorSpeciality.CARDIOLOGY)
+                .info("Doctor used by the appointment service tests")
+                .patientNumber(capacity)
+                .startTime(LocalTime.of(9, 0))
+                .endTime(LocalTime.of(17, 0))
+                .consultationFee(100.0)
+                .availableDays(new ArrayList<>(Arrays.asList(Day.values())))
+                .build();
+    }
+}
@@ -0,0 +1,244 @@
+package org.example.backend.service;
+
+import org.example.backend.PostgresTestConfiguration;
+import org.example.backend.dto.DoctorFacets;
+import org.example.backend.dto.DoctorMainView;
+import org.example.backend.event.DoctorChangedEvent;
+import org.example.backend.mapper.UserMapper;
+import org.example.backend.model.*;
+import org.example.backend.repository.DoctorRepository;
+import org.example.backend.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DoctorDirectoryTests {
+    private final DoctorRepository doctorRepository = mock(DoctorRepository.class);
+    private final DoctorDirectory directory = new DoctorDirectory(doctorRepository, new UserMapper());
+
+    @BeforeEach
+    void load() {
+        when(doctorRepository.findAll()).thenReturn(List.of(
+                doctor(1L, "Omar Rizk", City.CAIRO, DoctorSpeciality.NEUROLOGY, 150.0, Day.MONDAY),
+                doctor(2L, "Hana Kamel", City.CAIRO, DoctorSpeciality.CARDIOLOGY, 300.0, Day.MONDAY, Day.TUESDAY),
+                doctor(3L, "Amr Salem", City.GIZA, DoctorSpeciality.CARDIOLOGY, 600.0, Day.SUNDAY),
+                doctor(4L, "Laila Gaber", City.CAIRO, DoctorSpeciality.CARDIOLOGY, 400.0, Day.TUESDAY),
+                doctor(5L, "Nour Soliman", City.ALEXANDRIA, DoctorSpeciality.ORTHOPEDICS, 200.0, Day.MONDAY)));
+        directory.rebuild();
+    }
+
+    @Test
+    void searchesInDatabaseOrderAndPages() {
+        DoctorDirectory.Filter any = new DoctorDirectory.Filter(null, null, null, null);
+
+        // speciality by name (ORTHOPEDICS after NEUROLOGY), then full name
+        assertThat(ids(directory.search(any, 0, 10))).containsExactly(3L, 2L, 4L, 1L, 5L);
+        assertThat(ids(directory.search(any, 3, 10))).containsExactly(1L, 5L);
+        assertThat(directory.search(any, 5, 10)).isEmpty();
+
+        DoctorDirectory.Filter cairoMondays = new DoctorDirectory.Filter(City.CAIRO, null, Day.MONDAY, null);
+        assertThat(ids(directory.search(cairoMondays, 0, 10))).containsExactly(2L, 1L);
+        assertThat(ids(directory.search(cairoMondays, 1, 10))).containsExactly(1L);
+        DoctorDirectory.Filter cheapCardiology = new DoctorDirectory.Filter(null, DoctorSpeciality.CARDIOLOGY, null,
+                FeeRange.FROM_200_TO_350);
+        assertThat(ids(directory.search(cheapCardiology, 0, 10))).containsExactly(2L);
+
+        // after Hana Kamel: the key itself is skipped, and a key that is no longer present works as well
+        assertThat(ids(directory.searchAfter(any, DoctorSpeciality.CARDIOLOGY, "Hana Kamel", 2L, 2)))
+                .containsExactly(4L, 1L);
+        assertThat(ids(directory.searchAfter(any, DoctorSpeciality.CARDIOLOGY, "Ziad Removed", 9L, 10)))
+                .containsExactly(1L, 5L);
+    }
+
+    @Test
+    void facetsCountEachDimensionUnderTheOtherFilters() {
+        DoctorFacets facets = directory.facets(
+                new DoctorDirectory.Filter(City.CAIRO, DoctorSpeciality.CARDIOLOGY, null, null));
+
+        assertThat(facets.getTotal()).isEqualTo(2);
+        assertThat(facets.getCities()).contains(entry(City.CAIRO, 2), entry(City.GIZA, 1), entry(City.LUXOR, 0))
+                .doesNotContainKey(City.ALL);
+        assertThat(facets.getSpecialities()).contains(entry(DoctorSpeciality.CARDIOLOGY, 2),
+                entry(DoctorSpeciality.NEUROLOGY, 1), entry(DoctorSpeciality.ORTHOPEDICS, 0));
+        assertThat(facets.getAvailableDays()).contains(entry(Day.MONDAY, 1), entry(Day.TUESDAY, 2),
+                entry(Day.SUNDAY, 0));
+        assertThat(facets.getFeeRanges()).contains(entry(FeeRange.FROM_200_TO_350, 1),
+                entry(FeeRange.FROM_350_TO_500, 1), entry(FeeRange.UNDER_200, 0));
+    }
+
+    @Test
+    void appliesDoctorChanges() {
+        DoctorDirectory.Filter any = new DoctorDirectory.Filter(null, null, null, null);
+        when(doctorRepository.findById(3L)).thenReturn(Optional.of(
+                doctor(3L, "Amr Salem", City.GIZA, DoctorSpeciality.OPHTHALMOLOGY, 600.0, Day.SUNDAY)));
+        when(doctorRepository.findById(1L)).thenReturn(Optional.empty());
+        // same place in the search order: replaced in place
+        when(doctorRepository.findById(4L)).thenReturn(Optional.of(
+                doctor(4L, "Laila Gaber", City.GIZA, DoctorSpeciality.CARDIOLOGY, 150.0, Day.MONDAY)));
+
+        directory.onDoctorChanged(new DoctorChangedEvent(3L));
+        directory.onDoctorChanged(new DoctorChangedEvent(1L));
+        directory.onDoctorChanged(new DoctorChangedEvent(4L));
+
+        assertThat(ids(directory.search(any, 0, 10))).containsExactly(2L, 4L, 3L, 5L);
+        assertThat(directory.facets(any).getSpecialities()).contains(entry(DoctorSpeciality.OPHTHALMOLOGY, 1),
+                entry(DoctorSpeciality.NEUROLOGY, 0));
+        assertThat(ids(directory.search(new DoctorDirectory.Filter(City.GIZA, null, Day.MONDAY, FeeRange.UNDER_200),
+                0, 10))).containsExactly(4L);
+        assertThat(ids(directory.search(new DoctorDirectory.Filter(City.CAIRO, null, Day.TUESDAY, null), 0, 10)))
+                .containsExactly(2L);
+    }
+
+    @Test
+    void keepsChangesCommittedWhileRebuilding() {
+        DoctorDirectory fresh = new DoctorDirectory(doctorRepository, new UserMapper());
+        List<Doctor> stale = doctorRepository.findAll();
+        when(doctorRepository.findById(2L)).thenReturn(Optional.of(
+                doctor(2L, "Hana Kamel", City.GIZA, DoctorSpeciality.CARDIOLOGY, 300.0, Day.MONDAY)));
+        when(doctorRepository.findById(6L)).thenReturn(Optional.of(
+                doctor(6L, "Yara Nabil", City.CAIRO, DoctorSpeciality.NEUROLOGY, 250.0, Day.FRIDAY)));
+        // both changes commit after the read, and their events arrive before the read returns
+        when(doctorRepository.findAll()).thenAnswer(_ -> {
+            fresh.onDoctorChanged(new DoctorChangedEvent(2L));
+            fresh.onDoctorChanged(new DoctorChangedEvent(6L));
+            return stale;
+        });
+
+        fresh.rebuild();
+
+        DoctorDirectory.Filter any = new DoctorDirectory.Filter(null, null, null, null);
+        assertThat(ids(fresh.search(any, 0, 10))).containsExactly(3L, 2L, 4L, 1L, 6L, 5L);
+        assertThat(ids(fresh.search(new DoctorDirectory.Filter(City.GIZA, null, null, null), 0, 10)))
+                .containsExactly(3L, 2L);
+    }
+
+    @Test
+    void keepsTheNewestOfInterleavedChanges() {
+        Optional<Doctor> older = Optional.of(
+                doctor(4L, "Laila Gaber", City.CAIRO, DoctorSpeciality.CARDIOLOGY, 150.0, Day.TUESDAY));
+        Optional<Doctor> newer = Optional.of(
+                doctor(4L, "Laila Gaber", City.GIZA, DoctorSpeciality.CARDIOLOGY, 150.0, Day.FRIDAY));
+        // two changes to one doctor: the read of the first event returns after the second event applied the newer row
+        when(doctorRepository.findById(4L)).thenAnswer(_ -> {
+            doReturn(newer).when(doctorRepository).findById(4L);
+            directory.onDoctorChanged(new DoctorChangedEvent(4L));
+            return older;
+        });
+
+        directory.onDoctorChanged(new DoctorChangedEvent(4L));
+
+        assertThat(ids(directory.search(new DoctorDirectory.Filter(City.GIZA, null, Day.FRIDAY, null), 0, 10)))
+                .containsExactly(4L);
+        assertThat(ids(directory.search(new DoctorDirectory.Filter(City.CAIRO, null, Day.TUESDAY, null), 0, 10)))
+                .containsExactly(2L);
+    }
+
+    @Nested
+    @SpringBootTest
+    @ActiveProfiles("test")
+    @Import(PostgresTestConfiguration.class)
+    @Testcontainers(disabledWithoutDocker = true)
+    class AgainstDatabase {
+
+        @Autowired
+        private DoctorRepository repository;
+        @Autowired
+        private UserRepository userRepository;
+        @Autowired
+        private UserMapper userMapper;
+
+        // lowercase names, particles and accented letters are where a linguistic collation would disagree
+        @Test
+        void ordersNamesLikeTheDatabase() {
+            List<String> names = List.of("de la Cruz Maria", "Del Toro Omar", "Dalia Fathy", "ali Hassan",
+                    "Ali Hassan", "Omar Aziz", "Ömer Aziz", "Émile Zaki", "Zoe Adel", "Zoë Adel", "Zoë Adel");
+            for (int i = 0; i < names.size(); i++) {
+                Doctor doctor = doctor(null, names.get(i), City.ASWAN, DoctorSpeciality.OTOLARYNGOLOGY, 250.0,
+                        Day.MONDAY);
+                doctor.setEmail("collation" + i + "@gmail.com");
+                doctor.setPhoneNumber("015990000" + (10 + i));
+                userRepository.save(doctor);
+            }
+            DoctorDirectory directory = new DoctorDirectory(repository, userMapper);
+            directory.rebuild();
+            DoctorDirectory.Filter filter = new DoctorDirectory.Filter(null, DoctorSpeciality.OTOLARYNGOLOGY,
+                    null, null);
+
+            List<Doctor> database = repository.searchFirst(null, DoctorSpeciality.OTOLARYNGOLOGY, 0, 0,
+                    Double.MAX_VALUE, Limit.of(100));
+            assertThat(database.stream().map(Doctor::getFullName).filter(names::contains).toList())
+                    .containsExactly("Ali Hassan", "Dalia Fathy", "Del Toro Omar", "Omar Aziz", "Zoe Adel",
+                            "Zoë Adel", "Zoë Adel", "ali Hassan", "de la Cruz Maria", "Émile Zaki", "Ömer Aziz");
+            assertThat(ids(directory.search(filter, 0, 100))).isEqualTo(doctorIds(database));
+
+            // keyset and offset pages of three, on both sides
+            List<Long> keyset = new ArrayList<>();
+            List<Long> directoryKeyset = new ArrayList<>();
+            List<Long> offset = new ArrayList<>();
+            List<Doctor> page = repository.searchFirst(null, DoctorSpeciality.OTOLARYNGOLOGY, 0, 0,
+                    Double.MAX_VALUE, Limit.of(3));
+            while (!page.isEmpty()) {
+                keyset.addAll(doctorIds(page));
+                Doctor last = page.getLast();
+                directoryKeyset.addAll(ids(directory.searchAfter(filter, last.getDoctorSpeciality(),
+                        last.getFullName(), last.getId(), 3)));
+                page = repository.searchAfter(null, DoctorSpeciality.OTOLARYNGOLOGY, 0, 0, Double.MAX_VALUE,
+                        last.getDoctorSpeciality(), last.getFullName(), last.getId(), Limit.of(3));
+            }
+            for (int number = 0; offset.size() == number * 3; number++) {
+                offset.addAll(doctorIds(repository.search(null, DoctorSpeciality.OTOLARYNGOLOGY, 0, 0,
+                        Double.MAX_VALUE, PageRequest.of(number, 3)).getContent()));
+            }
+            assertThat(keyset).isEqualTo(doctorIds(database));
+            assertThat(offset).isEqualTo(doctorIds(database));
+            // each directory page after a database cursor is the next database page
+            assertThat(directoryKeyset).isEqualTo(doctorIds(database).subList(3, database.size()));
+        }
+
+        private static List<Long> doctorIds(List<Doctor> doctors) {
+            return doctors.stream().map(Doctor::getId).toList();
+        }
+    }
+
+    private static List<Long> ids(List<DoctorMainView> doctors) {
+        return doctors.stream().map(DoctorMainView::getId).toList();
+    }
+
+    private static Doctor doctor(Long id, String name, City city, DoctorSpeciality speciality, double fee,
+                                 Day... days) {
+        return Doctor.builder()
+                .id(id)
+                .fullName(name)
+                .email("doctor" + id + "@gmail.com")
+                .password("password")
+                .phoneNumber("0111000000" + id)
+                .city(city)
+                .street("Directory street")
+                .doctorSpeciality(speciality)
+                .info("Doctor used by the doctor directory tests")
+                .patientNumber(10)
+                .startTime(LocalTime.of(9, 0))
+                .endTime(LocalTime.of(17, 0))
+                .consultationFee(fee)
+                .availableDays(new ArrayList<>(List.of(days)))
+                .build();
+    }
+}
@@ -0,0 +1,124 @@
+package org.example.backend.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.validation.ConstraintViolationException;
+import org.example.backend.PostgresTestConfiguration;
+import org.example.backend.dto.DoctorMainView;
+import org.example.backend.exception.ErrorMessage;
+import org.example.backend.model.*;
+import org.example.backend.repository.UserRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(PostgresTestConfiguration.class)
+@Testcontainers(disabledWithoutDocker = true)
+class DoctorServiceTests {
+
+    @Autowired
+    private DoctorService doctorService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // A profile edit validates and writes only the patched properties, and leaves the days collection alone unless
+    // the days change
+    @Test
+    void patchTouchesOnlyChangedProperties() throws Exception {
+        Doctor doctor = userRepository.save(doctor("patch.doctor", "01280000000"));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        DoctorMainView view = doctorService.updateDoctor(doctor.getId(), Map.of(
+                "info", "Cardiologist, now also seeing patients on video calls",
+                "availableDays", List.of("WEDNESDAY", "MONDAY")));
+
+        assertThat(view.getInfo()).isEqualTo("Cardiologist, now also seeing patients on video calls");
+        assertThat(view.getStreet()).isEqualTo("Pyramids street");
+        assertThat(view.getAvailableDays()).containsExactly(Day.WEDNESDAY, Day.MONDAY);
+        assertThat(statistics.getEntityUpdateCount()).isEqualTo(1);
+        // the same days in another order: only the order column changes, the collection is neither loaded nor
+        // rewritten
+        assertThat(statistics.getCollectionLoadCount()).isZero();
+        assertThat(statistics.getCollectionRecreateCount() + statistics.getCollectionUpdateCount()).isZero();
+
+        view = doctorService.updateDoctor(doctor.getId(), Map.of("availableDays", List.of("SATURDAY")));
+
+        assertThat(view.getAvailableDays()).containsExactly(Day.SATURDAY);
+        assertThat(jdbcTemplate.queryForList("SELECT day FROM doctor_available_days WHERE doctor_id = ?",
+                String.class, doctor.getId())).containsExactly("SATURDAY");
+    }
+
+    @Test
+    void patchIsValidatedAgainstStoredValues() throws Exception {
+        Doctor doctor = userRepository.save(doctor("invalid.patch", "01280000001"));
+
+        // 18:00 is after the stored end time of 17:00
+        assertThatThrownBy(() -> doctorService.updateDoctor(doctor.getId(), Map.of("startTime", "18:00")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage(ErrorMessage.INVALID_WORKING_HOURS.getMessage());
+        assertThatThrownBy(() -> doctorService.updateDoctor(doctor.getId(), Map.of("info", "Too short")))
+                .isInstanceOf(ConstraintViolationException.class);
+
+        DoctorMainView view = doctorService.updateDoctor(doctor.getId(),
+                Map.of("startTime", "18:00", "endTime", "23:00"));
+
+        assertThat(view.getStartTime()).isEqualTo(LocalTime.of(18, 0));
+        assertThat(view.getEndTime()).isEqualTo(LocalTime.of(23, 0));
+    }
+
+    // Hibernate still validates updates made outside a patch; only the days are left to the insert (OnInsert group)
+    @Test
+    void entityUpdatesAreValidated() {
+        Doctor doctor = userRepository.save(doctor("entity.update", "01280000002"));
+
+        assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(_ -> {
+            Doctor loaded = (Doctor) userRepository.findById(doctor.getId()).orElseThrow();
+            loaded.setInfo("Too short");
+        })).hasRootCauseInstanceOf(ConstraintViolationException.class);
+
+        Doctor duplicateDays = doctor("duplicate.days", "01280000003");
+        duplicateDays.setAvailableDays(List.of(Day.MONDAY, Day.MONDAY));
+        assertThatThrownBy(() -> userRepository.save(duplicateDays))
+                .hasRootCauseInstanceOf(ConstraintViolationException.class);
+    }
+
+    private static Doctor doctor(String name, String phoneNumber) {
+        return Doctor.builder()
+                .fullName("Doctor " + name)
+                .email(name + "@gmail.com")
+                .password("password")
+                .phoneNumber(phoneNumber)
+                .city(City.GIZA)
+                .street("Pyramids street")
+                .doctorSpeciality(DoctorSpeciality.CARDIOLOGY)
+                .info("Cardiologist with twenty years of experience")
+                .patientNumber(20)
+                .startTime(LocalTime.of(9, 0))
+                .endTime(LocalTime.of(17, 0))
+                .consultationFee(250.0)
+                .availableDays(List.of(Day.MONDAY, Day.WEDNESDAY))
+                .build();
+    }
+}
@@ -0,0 +1,223 @@
+package org.example.backend.service;
+
+import org.example.backend.PostgresTestConfiguration;
+import org.example.backend.dto.DoctorSuggestion;
+import org.example.backend.event.DoctorChangedEvent;
+import org.example.backend.model.City;
+import org.example.backend.model.Day;
+import org.example.backend.model.Doctor;
+import org.example.backend.model.DoctorSpeciality;
+import org.example.backend.repository.DoctorNameMatch;
+import org.example.backend.repository.DoctorRepository;
+import org.example.backend.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DoctorTypeaheadIndexTests {
+    private final DoctorRepository doctorRepository = mock(DoctorRepository.class);
+    private final DoctorTypeaheadIndex index = new DoctorTypeaheadIndex(doctorRepository);
+
+    @BeforeEach
+    void load() {
+        when(doctorRepository.findAllTypeaheadEntries()).thenReturn(List.of(
+                new Match(1L, "Karim Mansour", "Nile street"),
+                new Match(2L, "Karim Adel", "Tahrir street"),
+                new Match(3L, "Ahmed Karim", "Corniche road"),
+                new Match(4L, "Mona Kamal", "Karim street"),
+                new Match(5L, "Karim Adel", "Pyramids road"),
+                new Match(6L, "Émile Zaki", "Ṣalah Salem street")));
+        index.rebuild();
+    }
+
+    @Test
+    void matchesWordPrefixesIgnoringCaseAndDiacritics() {
+        assertThat(ids(index.suggest("EMILE", 10))).containsExactly(6L);
+        assertThat(ids(index.suggest("Émi", 10))).containsExactly(6L);
+        assertThat(ids(index.suggest("salah", 10))).containsExactly(6L);
+        assertThat(ids(index.suggest("  karim,  mans ", 10))).containsExactly(1L);
+        assertThat(index.suggest("--", 10)).isEmpty();
+        assertThat(index.suggest("karimo", 10)).isEmpty();
+    }
+
+    // every input word must prefix a word of the name or the street
+    @Test
+    void intersectsTheMatchesOfEveryWord() {
+        assertThat(ids(index.suggest("mansour karim", 10))).containsExactly(1L);
+        assertThat(ids(index.suggest("karim street", 10))).containsExactly(2L, 1L, 4L);
+        assertThat(index.suggest("karim salem", 10)).isEmpty();
+    }
+
+    // name starts with the input, then every input word in the name, then the rest; ties by name and id
+    @Test
+    void ranksNameStartsThenNameWordsThenStreets() {
+        assertThat(ids(index.suggest("karim", 10))).containsExactly(2L, 5L, 1L, 3L, 4L);
+        assertThat(ids(index.suggest("karim", 2))).containsExactly(2L, 5L);
+        assertThat(ids(index.suggest("adel kar", 10))).containsExactly(2L, 5L);
+    }
+
+    @Test
+    void dropsTheOldWordsOfARenamedDoctor() {
+        when(doctorRepository.findTypeaheadEntry(1L)).thenReturn(Optional.of(
+                new Match(1L, "Youssef Mansour", "Nile street")));
+        when(doctorRepository.findTypeaheadEntry(3L)).thenReturn(Optional.empty());
+
+        index.onDoctorChanged(new DoctorChangedEvent(1L));
+        index.onDoctorChanged(new DoctorChangedEvent(3L));
+
+        assertThat(ids(index.suggest("karim", 10))).containsExactly(2L, 5L, 4L);
+        assertThat(ids(index.suggest("youss", 10))).containsExactly(1L);
+        assertThat(ids(index.suggest("mans", 10))).containsExactly(1L);
+        assertThat(index.suggest("corniche", 10)).isEmpty();
+    }
+
+    @Test
+    void keepsChangesCommittedWhileRebuilding() {
+        DoctorTypeaheadIndex fresh = new DoctorTypeaheadIndex(doctorRepository);
+        List<DoctorNameMatch> stale = doctorRepository.findAllTypeaheadEntries();
+        when(doctorRepository.findTypeaheadEntry(2L)).thenReturn(Optional.of(
+                new Match(2L, "Hesham Adel", "Tahrir street")));
+        when(doctorRepository.findTypeaheadEntry(7L)).thenReturn(Optional.of(
+                new Match(7L, "Karim Fawzy", "Abbas street")));
+        // both changes commit after the read, and their events arrive before the read returns
+        when(doctorRepository.findAllTypeaheadEntries()).thenAnswer(_ -> {
+            fresh.onDoctorChanged(new DoctorChangedEvent(2L));
+            fresh.onDoctorChanged(new DoctorChangedEvent(7L));
+            return stale;
+        });
+
+        fresh.rebuild();
+
+        assertThat(ids(fresh.suggest("karim", 10))).containsExactly(5L, 7L, 1L, 3L, 4L);
+        assertThat(ids(fresh.suggest("hesham", 10))).containsExactly(2L);
+    }
+
+    @Test
+    void keepsTheNewestOfInterleavedChanges() {
+        Optional<DoctorNameMatch> older = Optional.of(new Match(1L, "Youssef Mansour", "Nile street"));
+        Optional<DoctorNameMatch> newer = Optional.of(new Match(1L, "Youssef Mansour", "Zamalek street"));
+        // two changes to one doctor: the read of the first event returns after the second event applied the newer row
+        when(doctorRepository.findTypeaheadEntry(1L)).thenAnswer(_ -> {
+            doReturn(newer).when(doctorRepository).findTypeaheadEntry(1L);
+            index.onDoctorChanged(new DoctorChangedEvent(1L));
+            return older;
+        });
+
+        index.onDoctorChanged(new DoctorChangedEvent(1L));
+
+        assertThat(ids(index.suggest("zamalek", 10))).containsExactly(1L);
+        assertThat(index.suggest("nile", 10)).isEmpty();
+    }
+
+    // The trigram query answers input that prefixes no word, and the index while it is not built yet
+    @Nested
+    @SpringBootTest
+    @ActiveProfiles("test")
+    @Import(PostgresTestConfiguration.class)
+    @Testcontainers(disabledWithoutDocker = true)
+    class Fallback {
+
+        @Autowired
+        private DoctorRepository repository;
+        @Autowired
+        private UserRepository userRepository;
+
+        // a name starting with the input, then a street starting with it, then fuzzy matches
+        @Test
+        void scoresNamePrefixesAboveStreetPrefixesAboveFuzzyMatches() {
+            List<Long> ids = new ArrayList<>();
+            ids.add(save(0, "Karim Mansour", "Nile street"));
+            ids.add(save(1, "Mona Adel", "Karim street"));
+            ids.add(save(2, "Ahmed Karimi", "Tahrir square"));
+            ids.add(save(3, "Sara Nabil", "Corniche road"));
+
+            assertThat(matches("karim", PatientService.escapeLike("karim") + "%", ids))
+                    .containsExactly(ids.get(0), ids.get(1), ids.get(2));
+            // a typo reaches the name only through the fuzzy match
+            assertThat(matches("Krim Mansour", PatientService.escapeLike("Krim Mansour") + "%", ids))
+                    .containsExactly(ids.get(0));
+        }
+
+        // % and _ typed by the user are matched literally
+        @Test
+        void escapesLikeWildcards() {
+            Long id = save(4, "Hazem Fouad", "Gameat El Dowal street");
+
+            assertThat(PatientService.escapeLike("50%_\\")).isEqualTo("50\\%\\_\\\\");
+            assertThat(matches("haz_m", "haz_m%", List.of(id))).containsExactly(id);
+            assertThat(matches("haz_m", PatientService.escapeLike("haz_m") + "%", List.of(id))).isEmpty();
+        }
+
+        private List<Long> matches(String query, String prefix, List<Long> ids) {
+            return repository.findTypeaheadMatches(query, prefix, 50).stream()
+                    .map(DoctorNameMatch::getId)
+                    .filter(ids::contains)
+                    .toList();
+        }
+
+        private Long save(int number, String name, String street) {
+            return userRepository.save(Doctor.builder()
+                    .fullName(name)
+                    .email("typeahead" + number + "@gmail.com")
+                    .password("password")
+                    .phoneNumber("0158800000" + number)
+                    .city(City.CAIRO)
+                    .street(street)
+                    .doctorSpeciality(DoctorSpeciality.DERMATOLOGY)
+                    .info("Doctor used by the typeahead fallback tests")
+                    .patientNumber(10)
+                    .startTime(LocalTime.of(9, 0))
+                    .endTime(LocalTime.of(17, 0))
+                    .consultationFee(200.0)
+                    .availableDays(new ArrayList<>(List.of(Day.MONDAY)))
+                    .build()).getId();
+        }
+    }
+
+    private static List<Long> ids(List<DoctorSuggestion> suggestions) {
+        return suggestions.stream().map(DoctorSuggestion::getId).toList();
+    }
+
+    private record Match(Long id, String fullName, String street) implements DoctorNameMatch {
+
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public String getFullName() {
+            return fullName;
+        }
+
+        @Override
+        public String getStreet() {
+            return street;
+        }
+
+        @Override
+        public String getCity() {
+            return City.CAIRO.name();
+        }
+
+        @Override
+        public String getDoctorSpeciality() {
+            return DoctorSpeciality.CARDIOLOGY.name();
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package org.example.backend.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityNotFoundException;
+import org.example.backend.PostgresTestConfiguration;
+import org.example.backend.dto.CursorPage;
+import org.example.backend.dto.MedicalRecordResponse;
+import org.example.backend.dto.MedicalRecordSearchHit;
+import org.example.backend.model.*;
+import org.example.backend.repository.MedicalRecordRepository;
+import org.example.backend.repository.UserRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.BiFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(PostgresTestConfiguration.class)
+@Testcontainers(disabledWithoutDocker = true)
+class MedicalRecordServiceTests {
+    private static final int RECORDS = 1_000;
+
+    @Autowired
+    private MedicalRecordService medicalRecordService;
+    @Autowired
+    private MedicalRecordRepository medicalRecordRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    // The whole share is a single INSERT ... SELECT, and sharing again adds nothing (its timing for 10k records is
+    // MedicalRecordShareBenchmark)
+    @Test
+    void sharingAllRecordsIsOneStatement() {
+        Patient patient = userRepository.save(Patient.builder()
+                .fullName("Record Patient")
+                .email("record.patient@gmail.com")
+                .password("password")
+                .phoneNumber("01270000000")
+                .build());
+        Doctor author = userRepository.save(doctor("record.author", "01270000001"));
+        Doctor reader = userRepository.save(doctor("record.reader", "01270000002"));
+        List<Object[]> rows = new ArrayList<>(RECORDS);
+        for (int i = 0; i < RECORDS; i++) {
+            rows.add(new Object[]{"Follow-up visit number " + i + ", vitals within normal range.",
+                    Date.valueOf(LocalDate.now().minusDays(i % 3650)), author.getId(), patient.getId()});
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO medical_records (content, date, doctor_id, patient_id) VALUES (?, ?, ?, ?)", rows);
+        medicalRecordService.shareRecordWithDoctor(patient,
+                medicalRecordRepository.findResponsesByPatientId(patient.getId()).getFirst().getId(), reader.getId());
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        int shared = medicalRecordService.shareAllRecordsWithDoctor(patient, reader.getId());
+
+        // the record shared on its own is skipped by ON CONFLICT
+        assertThat(shared).isEqualTo(RECORDS - 1);
+        // doctor existence check + the INSERT ... SELECT
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(medicalRecordService.shareAllRecordsWithDoctor(patient, reader.getId())).isZero();
+        assertThat(medicalRecordRepository.findResponsesSharedWithDoctor(reader.getId())).hasSize(RECORDS);
+    }
+
+    // A patient cannot share another patient's record; it is not found for them, and sharing their own record
+    // twice is not an error
+    @Test
+    void onlyTheRecordsPatientCanShareIt() {
+        Patient owner = userRepository.save(patient("share.owner", "01270000012"));
+        Patient other = userRepository.save(patient("share.other", "01270000013"));
+        Doctor author = userRepository.save(doctor("share.author", "01270000014"));
+        Doctor reader = userRepository.save(doctor("share.reader", "01270000015"));
+        MedicalRecord record = record("Sprained ankle, rest and ice advised.", author, owner);
+
+        assertThatThrownBy(() -> medicalRecordService.shareRecordWithDoctor(other, record.getId(), reader.getId()))
+                .isInstanceOf(EntityNotFoundException.class);
+        assertThatThrownBy(() -> medicalRecordService.shareRecordWithDoctor(owner, Long.MAX_VALUE, reader.getId()))
+                .isInstanceOf(EntityNotFoundException.class);
+        assertThat(medicalRecordRepository.findResponsesSharedWithDoctor(reader.getId())).isEmpty();
+
+        medicalRecordService.shareRecordWithDoctor(owner, record.getId(), reader.getId());
+        medicalRecordService.shareRecordWithDoctor(owner, record.getId(), reader.getId());
+        assertThat(medicalRecordRepository.findResponsesSharedWithDoctor(reader.getId()))
+                .extracting(MedicalRecordResponse::getId)
+                .containsExactly(record.getId());
+    }
+
+    // Search is scoped in SQL: a patient finds only their own records, a doctor only the records shared with them
+    @Test
+    void searchOnlyReturnsRecordsInTheCallersScope() {
+        Patient patient = userRepository.save(patient("search.patient", "01270000003"));
+        Patient other = userRepository.save(patient("search.other", "01270000004"));
+        Doctor author = userRepository.save(doctor("search.author", "01270000005"));
+        Doctor reader = userRepository.save(doctor("search.reader", "01270000006"));
+        MedicalRecord shared = record("Persistent migraine with aura, prescribed sumatriptan.", author, patient);
+        record("Migraine resolved, sumatriptan stopped.", author, patient);
+        record("Tension headache after a migraine episode.", author, patient);
+        record("Migraine in the family history.", author, other);
+        medicalRecordService.shareRecordWithDoctor(patient, shared.getId(), reader.getId());
+
+        CursorPage<MedicalRecordSearchHit> first = medicalRecordService.searchRecords(patient, "migraine", null, 2);
+        assertThat(first.getContent()).hasSize(2);
+        assertThat(first.getNextCursor()).isNotNull();
+        CursorPage<MedicalRecordSearchHit> second = medicalRecordService.searchRecords(patient, "migraine",
+                first.getNextCursor(), 2);
+        assertThat(second.getContent()).hasSize(1);
+        assertThat(second.getNextCursor()).isNull();
+        assertThat(first.getContent().getFirst().getRank())
+                .isGreaterThanOrEqualTo(second.getContent().getFirst().getRank());
+        assertThat(first.getContent().getFirst().getHeadline()).contains("<mark>");
+
+        assertThat(medicalRecordService.searchRecords(reader, "migraine -headache", null, 10).getContent())
+                .extracting(hit -> hit.getRecord().getId())
+                .containsExactly(shared.getId());
+        assertThat(medicalRecordService.searchRecords(reader, "\"family history\"", null, 10).getContent())
+                .isEmpty();
+    }
+
+    // Several records share a day, so slices must break ties by id to neither skip nor repeat a record
+    @Test
+    void timelinesPageThroughSameDayRecordsToTheEnd() {
+        Patient patient = userRepository.save(patient("timeline.patient", "01270000007"));
+        Doctor author = userRepository.save(doctor("timeline.author", "01270000008"));
+        Doctor reader = userRepository.save(doctor("timeline.reader", "01270000009"));
+        LocalDate today = LocalDate.now();
+        List<MedicalRecord> records = new ArrayList<>();
+        for (int daysAgo : new int[]{0, 10, 0, 1, 10, 0, 1}) {
+            records.add(record("Routine check-up, blood pressure normal.", today.minusDays(daysAgo), author,
+                    patient));
+        }
+        List<MedicalRecord> shared = List.of(records.get(0), records.get(1), records.get(2), records.get(4),
+                records.get(5));
+        shared.forEach(record -> medicalRecordService.shareRecordWithDoctor(patient, record.getId(),
+                reader.getId()));
+
+        assertThat(scroll((cursor, size) -> medicalRecordService.getTimelineOfPatient(patient, cursor, size)))
+                .isEqualTo(newestFirst(records));
+        assertThat(scroll((cursor, size) -> medicalRecordService.getSharedTimelineOfDoctor(reader, cursor, size)))
+                .isEqualTo(newestFirst(shared));
+
+        List<Long> streamed = new ArrayList<>();
+        medicalRecordService.streamTimelineOfPatient(patient.getId(), record -> streamed.add(record.getId()));
+        assertThat(streamed).isEqualTo(newestFirst(records));
+        streamed.clear();
+        medicalRecordService.streamSharedTimelineOfDoctor(reader.getId(), record -> streamed.add(record.getId()));
+        assertThat(streamed).isEqualTo(newestFirst(shared));
+    }
+
+    // The stream runs in a read-only transaction and reads through a server-side cursor: while the first record
+    // is consumed, the rest of the timeline is still waiting in an open portal
+    @Test
+    void streamedTimelineReadsThroughACursor() {
+        Patient patient = userRepository.save(patient("stream.patient", "01270000010"));
+        Doctor author = userRepository.save(doctor("stream.author", "01270000011"));
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 1_200; i++) {
+            rows.add(new Object[]{"Daily glucose reading number " + i + ", within target.",
+                    Date.valueOf(LocalDate.now().minusDays(i)), author.getId(), patient.getId()});
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO medical_records (content, date, doctor_id, patient_id) VALUES (?, ?, ?, ?)", rows);
+
+        List<Object> seenWithFirstRecord = new ArrayList<>();
+        int[] count = {0};
+        medicalRecordService.streamTimelineOfPatient(patient.getId(), record -> {
+            if (count[0]++ == 0) {
+                seenWithFirstRecord.add(TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+                seenWithFirstRecord.add(jdbcTemplate.queryForObject("SHOW transaction_read_only", String.class));
+                seenWithFirstRecord.add(jdbcTemplate.queryForObject(
+                        "SELECT count(*) FROM pg_cursors WHERE name <> ''", Integer.class));
+            }
+        });
+
+        assertThat(count[0]).isEqualTo(1_200);
+        assertThat(seenWithFirstRecord).containsExactly(true, "on", 1);
+    }
+
+    private static List<Long> scroll(BiFunction<String, Integer, CursorPage<MedicalRecordResponse>> slice) {
+        List<Long> ids = new ArrayList<>();
+        CursorPage<MedicalRecordResponse> page = slice.apply(null, 2);
+        ids.addAll(page.getContent().stream().map(MedicalRecordResponse::getId).toList());
+        while (page.getNextCursor() != null) {
+            page = slice.apply(page.getNextCursor(), 2);
+            ids.addAll(page.getContent().stream().map(MedicalRecordResponse::getId).toList());
+        }
+        return ids;
+    }
+
+    private static List<Long> newestFirst(List<MedicalRecord> records) {
+        return records.stream()
+                .sorted(Comparator.comparing(MedicalRecord::getDate).thenComparing(MedicalRecord::getId).reversed())
+                .map(MedicalRecord::getId)
+                .toList();
+    }
+
+    private MedicalRecord record(String content, Doctor doctor, Patient patient) {
+        return record(content, LocalDate.now(), doctor, patient);
+    }
+
+    private MedicalRecord record(String content, LocalDate date, Doctor doctor, Patient patient) {
+        return medicalRecordRepository.save(MedicalRecord.builder()
+                .content(content)
+                .date(date)
+                .doctor(doctor)
+                .patient(patient)
+                .build());
+    }
+
+    private static Patient patient(String name, String phoneNumber) {
+        return Patient.builder()
+                .fullName("Patient " + name)
+                .email(name + "@gmail.com")
+                .password("password")
+                .phoneNumber(phoneNumber)
+                .build();
+    }
+
+    private static Doctor doctor(String name, String phoneNumber) {
+        return Doctor.builder()
+                .fullName("Doctor " + name)
+                .email(name + "@gmail.com")
+                .password("password")
+                .phoneNumber(phoneNumber)
+                .city(City.CAIRO)
+                .street("Test street")
+                .doctorSpeciality(DoctorSpeciality.CARDIOLOGY)
+                .info("Doctor used by the medical record service tests")
+                .patientNumber(10)
+                .startTime(LocalTime.of(9, 0))
+                .endTime(LocalTime.of(17, 0))
+                .consultationFee(100.0)
+                .availableDays(new ArrayList<>(List.of(Day.values())))
+                .build();
+    }
+}
@@ -0,0 +1,51 @@
+package org.example.backend.validator;
+
+import jakarta.validation.ConstraintDeclarationException;
+import org.example.backend.dto.DoctorMainView;
+import org.example.backend.dto.DoctorRegisterRequest;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FieldsComparisonValidatorTests {
+
+    @Test
+    void comparesFieldsDeclaredOnTheClassOrItsSuperclasses() {
+        FieldsComparisonValidator validator =
+                validator(DoctorRegisterRequest.class.getAnnotation(FieldsComparison.class));
+        DoctorMainView view = new DoctorMainView();
+        view.setStartTime(LocalTime.of(9, 0));
+        view.setEndTime(LocalTime.of(17, 0));
+        DoctorRegisterRequest request = new DoctorRegisterRequest();
+        request.setStartTime(LocalTime.of(17, 0));
+        request.setEndTime(LocalTime.of(9, 0));
+
+        assertThat(validator.isValid(view, null)).isTrue();
+        assertThat(validator.isValid(request, null)).isFalse();
+        request.setEndTime(null);
+        assertThat(validator.isValid(request, null)).isTrue();
+    }
+
+    @Test
+    void missingFieldIsReportedAsDeclarationError() {
+        FieldsComparisonValidator validator = validator(Misdeclared.class.getAnnotation(FieldsComparison.class));
+
+        assertThatThrownBy(() -> validator.isValid(new Misdeclared(), null))
+                .isInstanceOf(ConstraintDeclarationException.class)
+                .hasMessageContaining("finish");
+    }
+
+    private static FieldsComparisonValidator validator(FieldsComparison annotation) {
+        FieldsComparisonValidator validator = new FieldsComparisonValidator();
+        validator.initialize(annotation);
+        return validator;
+    }
+
+    @FieldsComparison(smallerField = "start", biggerField = "finish", message = "")
+    private static class Misdeclared {
+        private final Integer start = 1;
+    }
+}